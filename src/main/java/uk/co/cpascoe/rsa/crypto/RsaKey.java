@@ -6,12 +6,18 @@ import java.lang.reflect.Type;
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
 import uk.co.cpascoe.rsa.maths.BigInt;
+import uk.co.cpascoe.rsa.maths.MontgomeryContext;
 import uk.co.cpascoe.rsa.Utils;
 
 public class RsaKey {
     protected BigInt n;
     protected BigInt e;
 
+    /**
+     * The Montgomery context for the modulus, created when it is first needed
+     */
+    private MontgomeryContext nContext;
+
     protected RsaKey() { }
 
     /**
@@ -53,7 +59,23 @@ public class RsaKey {
      * Computes the value of (val ^ e) mod n
      */
     public BigInt publicExponentation(BigInt val) {
-        return val.powMod(this.e, this.n);
+        return this.getModulusContext().powMod(val, this.e);
+    }
+
+    /**
+     * Returns the Montgomery context for the modulus, which is reused for the lifetime of this key
+     */
+    protected MontgomeryContext getModulusContext() {
+        // MontgomeryContext is immutable, so if two threads race to create it they will each get a valid instance -
+        // the field is only read once, since a second unsynchronised read could still see null
+        MontgomeryContext context = this.nContext;
+
+        if (context == null) {
+            context = new MontgomeryContext(this.n);
+            this.nContext = context;
+        }
+
+        return context;
     }
 
     /**
@@ -6,8 +6,11 @@ import java.util.HashMap;
 import java.lang.reflect.Type;
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
+import uk.co.cpascoe.rsa.maths.BarrettReducer;
 import uk.co.cpascoe.rsa.maths.BigInt;
 import uk.co.cpascoe.rsa.maths.MathUtils;
+import uk.co.cpascoe.rsa.maths.MontgomeryContext;
+import uk.co.cpascoe.rsa.maths.SignedBigInt;
 import uk.co.cpascoe.rsa.Utils;
 
 public class RsaPrivateKey extends RsaKey {
@@ -19,6 +22,17 @@ public class RsaPrivateKey extends RsaKey {
     protected BigInt dq;
     protected BigInt qinv;
 
+    /**
+     * The Montgomery contexts for p and q, created when they are first needed
+     */
+    private MontgomeryContext pContext;
+    private MontgomeryContext qContext;
+
+    /**
+     * The Barrett reducer for p, used when recombining the CRT halves
+     */
+    private BarrettReducer pReducer;
+
     /**
      * Creates a new RSA public key from the given data
      * @param data A map containing the modulus and public exponent for the key
@@ -78,17 +92,27 @@ public class RsaPrivateKey extends RsaKey {
      * Computes the value of (val ^ d) mod n
      */
     public BigInt privateExponentation(BigInt val) {
-        return val.powMod(this.d, this.n);
+        return this.getModulusContext().powMod(val, this.d);
     }
 
     /**
      * Efficiently computes the value of (val ^ d) mod n
      */
     public BigInt fastPrivateExponentation(BigInt val) {
-        BigInt m1 = val.powMod(this.dp, this.p);
-        BigInt m2 = val.powMod(this.dq, this.q);
+        // Like the modulus context, these are immutable and are only read once each, so racing threads are safe
+        MontgomeryContext pContext = this.pContext;
+        MontgomeryContext qContext = this.qContext;
+        BarrettReducer pReducer = this.pReducer;
+
+        if (pContext == null) this.pContext = pContext = new MontgomeryContext(this.p);
+        if (qContext == null) this.qContext = qContext = new MontgomeryContext(this.q);
+        if (pReducer == null) this.pReducer = pReducer = new BarrettReducer(this.p);
+
+        BigInt m1 = pContext.powMod(val, this.dp);
+        BigInt m2 = qContext.powMod(val, this.dq);
 
-        BigInt h = this.qinv.multiply(m1.subtract(m2)).mod(this.p);
+        // m1 - m2 is negative whenever m1 < m2, so it is reduced modulo p before the multiplication
+        BigInt h = pReducer.multiply(this.qinv, new SignedBigInt(m1).subtract(m2).mod(this.p));
 
         return m2.add(h.multiply(this.q));
     }
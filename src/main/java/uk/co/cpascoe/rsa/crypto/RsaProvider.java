@@ -2,7 +2,6 @@ package uk.co.cpascoe.rsa.crypto;
 
 import java.io.*;
 import java.security.*;
-import java.util.Arrays;
 import javax.crypto.*;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
@@ -52,7 +51,11 @@ public class RsaProvider {
         BigInt m = new BigInt(encodedKeyBlock);
         BigInt c = this.rsaKey.publicExponentation(m);
 
-        return Arrays.copyOf(c.exportToByteArray(), keyByteLength);
+        // c < n, so it always fits in the key length
+        byte[] encryptedKeyBlock = new byte[keyByteLength];
+        c.writeTo(encryptedKeyBlock, 0, keyByteLength);
+
+        return encryptedKeyBlock;
     }
 
     /**
@@ -65,7 +68,11 @@ public class RsaProvider {
         BigInt c = new BigInt(encryptedKeyBlock);
         BigInt m = ((RsaPrivateKey)this.rsaKey).privateExponentation(c);
 
-        byte[] encodedBlock = Arrays.copyOf(m.exportToByteArray(), keyByteLength - 1);
+        // A valid block always fits, so anything longer can't be decoded
+        if (m.byteCount() > keyByteLength - 1) throw new DecryptionException("Decrypted block is too long");
+
+        byte[] encodedBlock = new byte[keyByteLength - 1];
+        m.writeTo(encodedBlock, 0, encodedBlock.length);
 
         OaepProvider oaep = new OaepProvider();
 
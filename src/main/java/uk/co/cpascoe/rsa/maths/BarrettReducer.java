@@ -0,0 +1,146 @@
+package uk.co.cpascoe.rsa.maths;
+
+import java.util.Arrays;
+
+/**
+ * Reduces values modulo a fixed modulus m using Barrett reduction, which replaces each division with two multiplications
+ *
+ * With b = 2^32 and k the number of digits in m, the value mu = floor(b^(2k) / m) is computed once,
+ * and then any x < b^(2k) (which includes any product of two values less than m) can be reduced
+ * (HAC Algorithm 14.42). A BarrettReducer is never modified after it is created, so one instance can be shared between threads.
+ */
+public class BarrettReducer {
+    private final BigInt modulus;
+
+    /**
+     * The digits of the modulus
+     */
+    private final int[] m;
+
+    /**
+     * The number of digits in the modulus
+     */
+    private final int k;
+
+    /**
+     * The digits of floor(b^(2k) / m)
+     */
+    private final int[] mu;
+
+    /**
+     * Creates a new BarrettReducer for the given modulus
+     * @throws Error If the modulus is zero
+     */
+    public BarrettReducer(BigInt modulus) {
+        if (modulus.equals(0)) throw new Error("Modulus must not be zero");
+
+        this.modulus = modulus;
+        this.m = modulus.exportToIntArray();
+        this.k = this.m.length;
+        this.mu = new BigInt(1).shiftDigits(2 * this.k).quotient(modulus).exportToIntArray();
+    }
+
+    /**
+     * Returns the modulus
+     */
+    public BigInt getModulus() {
+        return this.modulus;
+    }
+
+    /**
+     * Returns x mod m
+     * @param x The value to reduce - values of b^(2k) or more are reduced by full division instead
+     */
+    public BigInt reduce(BigInt x) {
+        if (x.digitCount() > 2 * this.k) return x.mod(this.modulus);
+        if (x.lessThan(this.modulus)) return x;
+
+        int[] xDigits = x.exportToIntArray();
+        int[] q = this.estimateQuotient(xDigits);
+
+        // x - q * m < 4m < b^(k + 1), so only the lowest k + 1 digits of x and q * m are needed,
+        // and wrapping around modulo b^(k + 1) during the subtraction gives the right answer
+        int[] r = Arrays.copyOf(xDigits, this.k + 1);
+        int[] qm = new int[this.k + 1];
+        DigitArithmetic.multiplyLow(q, q.length, this.m, this.k, qm, this.k + 1);
+        DigitArithmetic.subtract(r, this.k + 1, qm, this.k + 1, r);
+
+        while (this.compareToModulus(r) >= 0) {
+            DigitArithmetic.subtract(r, this.k + 1, this.m, this.k, r);
+        }
+
+        return BigInt.wrap(r);
+    }
+
+    /**
+     * Returns the quotient and remainder of x divided by m, using multiplications rather than long division
+     * @param x The dividend - values of b^(2k) or more are divided by full division instead
+     */
+    public BigInt.DivisionResult divide(BigInt x) {
+        if (x.digitCount() > 2 * this.k) return x.divide(this.modulus);
+        if (x.lessThan(this.modulus)) return new BigInt.DivisionResult(new BigInt(0), x);
+
+        int[] xDigits = x.exportToIntArray();
+        int[] q = this.estimateQuotient(xDigits);
+        int[] qm = Multiplication.multiply(q, q.length, this.m, this.k);
+
+        // q is never too large, so x - q * m is not negative, and it is less than 4m < b^(k + 1)
+        int[] r = new int[xDigits.length];
+        DigitArithmetic.subtract(xDigits, xDigits.length, qm, DigitArithmetic.normalisedLength(qm, qm.length), r);
+        r = Arrays.copyOf(r, this.k + 1);
+
+        int corrections = 0;
+
+        while (this.compareToModulus(r) >= 0) {
+            DigitArithmetic.subtract(r, this.k + 1, this.m, this.k, r);
+            corrections++;
+        }
+
+        return new BigInt.DivisionResult(BigInt.wrap(q).add(corrections), BigInt.wrap(r));
+    }
+
+    /**
+     * Returns the value of (a * b) mod m, where a and b are both less than m
+     */
+    public BigInt multiply(BigInt a, BigInt b) {
+        return this.reduce(a.multiply(b));
+    }
+
+    /**
+     * Returns the value of (a * a) mod m, where a is less than m
+     */
+    public BigInt square(BigInt a) {
+        return this.reduce(a.square());
+    }
+
+    /**
+     * Returns q = floor(floor(x / b^(k - 1)) * mu / b^(k + 1)), an estimate of floor(x / m) for x < b^(2k) which is at most 2 too small,
+     * or 3 too small when the lowest k - 1 columns of the product are skipped
+     */
+    private int[] estimateQuotient(int[] xDigits) {
+        int[] q1 = Arrays.copyOfRange(xDigits, this.k - 1, xDigits.length);
+
+        if (this.k >= Constants.KARATSUBA_THRESHOLD) {
+            int[] q2 = Multiplication.multiply(q1, q1.length, this.mu, this.mu.length);
+            return Arrays.copyOfRange(q2, this.k + 1, Math.max(q2.length, this.k + 1));
+        } else {
+            int[] q2 = new int[q1.length + this.mu.length - (this.k - 1)];
+            DigitArithmetic.multiplyHigh(q1, q1.length, this.mu, this.mu.length, this.k - 1, q2);
+            return Arrays.copyOfRange(q2, 2, Math.max(q2.length, 2));
+        }
+    }
+
+    /**
+     * Compares the k + 1 digits of r with the modulus
+     */
+    private int compareToModulus(int[] r) {
+        if (r[this.k] != 0) return 1;
+
+        for (int i = this.k - 1; i >= 0; i--) {
+            int diff = MathUtils.unsignedIntCompare(r[i], this.m[i]);
+            if (diff != 0) return diff;
+        }
+
+        return 0;
+    }
+}
@@ -4,7 +4,15 @@ import java.util.Random;
 import java.security.SecureRandom;
 import java.util.Arrays;
 import java.lang.Math;
-
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * An arbitrary-precision non-negative integer
+ *
+ * A BigInt is immutable: every operation returns a new BigInt, and its digits are never modified once it has been created,
+ * so one instance can be shared between threads without locking or copying. MutableBigInt is used to build values up in place.
+ */
 public class BigInt implements Comparable<BigInt> {
     public static class DivisionResult {
         private final BigInt quotient;
@@ -19,15 +27,48 @@ public class BigInt implements Comparable<BigInt> {
         public BigInt remainder() { return this.remainder; }
     }
 
+    /**
+     * Sliding-window exponentiation modulo 2^bits, where only the lowest bits of each product are computed
+     */
+    private static class LowBitsExponentiation extends SlidingWindowExponentiation {
+        private final int n;
+
+        /**
+         * Keeps the bits of the highest digit that are below 2^bits
+         */
+        private final int topMask;
+
+        private final int[] workspace;
+
+        private LowBitsExponentiation(int bits) {
+            this.n = MathUtils.divCeil(bits, 32);
+            this.topMask = 0xFFFFFFFF >>> (32 * this.n - bits);
+            this.workspace = new int[this.n];
+        }
+
+        @Override
+        protected void multiply(int[] a, int[] b, int[] result) {
+            DigitArithmetic.multiplyLow(a, this.n, b, this.n, this.workspace, this.n);
+            this.workspace[this.n - 1] &= this.topMask;
+            System.arraycopy(this.workspace, 0, result, 0, this.n);
+        }
+    }
+
     /**
      * The array of base 2^32 digits that represents the value of this BigInt
      */
-    private int[] digits;
+    private final int[] digits;
 
     /**
-     * The memoised products of this BigInt and increasing powers of 2, for binary long division
+     * The number of significant digits in the digit array (0 for zero) - every digit at or above this index is zero
      */
-    private BigInt[] powerOf2Multiples = null;
+    private final int length;
+
+    private BigInt(int[] digits, int length) {
+        // The arithmetic kernels read at least one digit, even of zero
+        this.digits = digits.length == 0 ? new int[1] : digits;
+        this.length = length;
+    }
 
     /**
      * Creates a new instance of a BigInt using the given int - the sign will be ignored
@@ -36,39 +77,98 @@ public class BigInt implements Comparable<BigInt> {
         if (value < 0) value = -value;
 
         this.digits = new int[] {value};
+        this.length = value == 0 ? 0 : 1;
     }
 
     /**
      * Creates a new instance of a BigInt using the given little-endian digit array
      */
     public BigInt(int[] digits) {
-        this.digits = Arrays.copyOf(digits, digits.length);
+        // The arithmetic kernels read at least one digit, even of zero
+        this.digits = Arrays.copyOf(digits, Math.max(digits.length, 1));
+        this.length = DigitArithmetic.normalisedLength(this.digits, this.digits.length);
     }
 
     /**
      * Creates a new instance of a BigInt using the given little-endian byte array
      */
     public BigInt(byte[] data) {
-        int digit = 0;
+        this(data, 0, data.length, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Creates a new instance of a BigInt using a range of the given byte array
+     * @param offset The index of the first byte
+     * @param length The number of bytes to read
+     * @param order The byte order of the range - with ByteOrder.BIG_ENDIAN the first byte is the most significant
+     */
+    public BigInt(byte[] data, int offset, int length, ByteOrder order) {
+        this(ByteBuffer.wrap(data, offset, length).order(order));
+    }
 
-        this.digits = new int[MathUtils.divCeil(data.length, 4)];
+    /**
+     * Creates a new instance of a BigInt using the remaining bytes of the given buffer (from its position to its limit),
+     * in the buffer's byte order - the bytes are read in place, and the buffer's position is not changed
+     */
+    public BigInt(ByteBuffer buffer) {
+        int start = buffer.position();
+        int byteCount = buffer.remaining();
+        boolean littleEndian = buffer.order() == ByteOrder.LITTLE_ENDIAN;
 
-        for (int i = 0; i < this.digits.length; i++) {
-            this.digits[i] = MathUtils.littleEndianBytesToInt(Arrays.copyOfRange(data, i * 4, (i + 1) * 4));
+        // The arithmetic kernels read at least one digit, even of zero
+        int[] digits = new int[Math.max(MathUtils.divCeil(byteCount, 4), 1)];
+
+        // ByteBuffer.getInt reads each group of 4 bytes in the buffer's byte order,
+        // so only the position of each group depends on the byte order
+        for (int i = 0; i < byteCount / 4; i++) {
+            digits[i] = buffer.getInt(littleEndian ? start + (4 * i) : start + byteCount - (4 * (i + 1)));
+        }
+
+        // The highest-order digit may have fewer than 4 bytes
+        for (int i = byteCount & ~3; i < byteCount; i++) {
+            byte b = buffer.get(littleEndian ? start + i : start + byteCount - 1 - i);
+            digits[i / 4] |= (b & 0xFF) << (8 * (i % 4));
         }
+
+        this.digits = digits;
+        this.length = DigitArithmetic.normalisedLength(digits, digits.length);
+    }
+
+    /**
+     * Returns the value of the given decimal string
+     * @throws Error If the string is empty or contains a character that is not a decimal digit
+     */
+    public static BigInt parse(String s) {
+        return BigInt.parse(s, 10);
+    }
+
+    /**
+     * Returns the value of the given string of digits in the given radix, where letters (in either case) are the digits above 9
+     * @throws Error If the radix is not between 2 and 36, or the string is empty or contains an invalid digit
+     */
+    public static BigInt parse(String s, int radix) {
+        return RadixConversion.parse(s, radix);
+    }
+
+    /**
+     * Creates a new BigInt that takes ownership of the given little-endian digit array, without copying it
+     */
+    static BigInt wrap(int[] digits) {
+        return new BigInt(digits, DigitArithmetic.normalisedLength(digits, digits.length));
+    }
+
+    /**
+     * Returns the digit array of this BigInt without copying it - it must not be modified, and it may be longer than digitCount()
+     */
+    int[] digitArray() {
+        return this.digits;
     }
 
     /**
      * Returns the number of digits (i.e. the position of the highest-order non-zero digit, plus 1)
      */
     public int digitCount() {
-        for (int i = this.digits.length - 1; i >= 0; i--) {
-            if (this.digits[i] != 0) {
-                return i + 1;
-            }
-        }
-
-        return 1;
+        return Math.max(this.length, 1);
     }
 
     /**
@@ -82,22 +182,18 @@ public class BigInt implements Comparable<BigInt> {
      * Returns the number of bits (i.e. the position of the highest-order non-zero bit, plus 1)
      */
     public int bitCount() {
-        for (int i = (this.digits.length * 32) - 1; i >= 0; i--) {
-            if (this.getBitAt(i) > 0) {
-                return i + 1;
-            }
-        }
+        if (this.length == 0) return 0;
 
-        return 0;
+        return (this.length * 32) - Integer.numberOfLeadingZeros(this.digits[this.length - 1]);
     }
 
     /**
      * Returns the index of lowest non-zero bit, or -1 if there are no set bits
      */
     public int getLowestSetBit() {
-        for (int i = 0; i < (this.digits.length * 32); i++) {
-            if (this.getBitAt(i) > 0) {
-                return i;
+        for (int i = 0; i < this.length; i++) {
+            if (this.digits[i] != 0) {
+                return (i * 32) + Integer.numberOfTrailingZeros(this.digits[i]);
             }
         }
 
@@ -112,116 +208,193 @@ public class BigInt implements Comparable<BigInt> {
         return (this.getDigit(digitIndex) & (1 << (bitIndex % 32))) == 0 ? 0 : 1;
     }
 
-
     /**
-     * Sets the bit at the specified index
-     * @param value The value of the bit - any non-zero value is assumed to be 1
-     * @param bitIndex The zero-based index of the bit to set
+     * Gets a window of up to 32 bits, starting at the specified zero-based index
+     * @param bitIndex The index of the lowest bit in the window
+     * @param count The number of bits in the window, between 0 and 32
+     * @return The bits in the window, where the bit at bitIndex is the lowest-order bit
      */
-    protected void setBitAt(int value, int bitIndex) {
-        if (value != 0) value = 1;
+    public int getBits(int bitIndex, int count) {
+        int digitIndex = bitIndex / 32;
+        int offset = bitIndex % 32;
 
-        int digit = this.getDigit(bitIndex / 32);
-        int bit = (digit & Constants.BIT_MASKS[bitIndex % 32]) == 0 ? 0 : 1;
+        // Combine the two digits the window could span, and then cut out the window
+        long pair = (this.getDigit(digitIndex) & Constants.UNSIGNED_INT_MASK) | ((this.getDigit(digitIndex + 1) & Constants.UNSIGNED_INT_MASK) << 32);
 
-        if (bit != value) {
-            this.setDigit(digit ^ Constants.BIT_MASKS[bitIndex % 32], bitIndex / 32);
-        }
+        return (int)((pair >>> offset) & ((1L << count) - 1));
     }
 
     /**
-     * Moves all bits in this BigInt up by 1 bit position
+     * Returns a copy of this value, where the bits have been shifted by the given number of bits
+     * @param bits The number of bits to move - positive moves bits up, negative down, and 0 is unchanged
      */
-    protected void shiftBitsUp() {
-        boolean carry = false;
-        boolean prevCarry = false;
-
+    public BigInt shiftBits(int bits) {
         int digitCount = this.digitCount();
 
-        for (int i = 0; i < digitCount; i++) {
-            int digit = this.getDigit(i);
+        if (bits >= 0) {
+            int[] result = new int[digitCount + MathUtils.divCeil(bits, 32)];
+            DigitArithmetic.shiftLeft(this.digits, digitCount, bits, result);
+            return BigInt.wrap(result);
+        }
+
+        bits = -bits;
 
-            carry = (digit & Constants.BIT_MASKS[31]) != 0;
+        if (bits / 32 >= digitCount) return new BigInt(0);
 
-            digit <<= 1;
+        int[] result = new int[digitCount - bits / 32];
+        DigitArithmetic.shiftRight(this.digits, digitCount, bits, result);
+        return BigInt.wrap(result);
+    }
 
-            if (prevCarry) digit++;
+    /**
+     * Masks off the lowest-order bits of this BigInt
+     * @param bits The number of bits to preserve; for example, 4 will keep the lowest 4 bits as they are and set all other bits to 0
+     */
+    protected BigInt maskLowerBits(int bits) {
+        return this.lowBits(bits);
+    }
 
-            this.setDigit(digit, i);
+    /**
+     * Returns the lowest k bits of this BigInt, i.e. this mod 2^k
+     */
+    public BigInt lowBits(int k) {
+        if (k >= this.bitCount()) return this;
+        if (k <= 0) return new BigInt(0);
 
-            prevCarry = carry;
-        }
+        int[] result = Arrays.copyOf(this.digits, MathUtils.divCeil(k, 32));
 
-        if (carry) {
-            this.setDigit(1, digitCount);
+        if (k % 32 != 0) {
+            // If the mask does not align with a digit,
+            // then mask off the last bits of the last digit that are not needed
+            result[result.length - 1] &= 0xFFFFFFFF >>> (32 - (k % 32));
         }
+
+        return BigInt.wrap(result);
     }
 
     /**
-     * Moves all bits in this BigInt down by 1 bit position
+     * Returns the bits of this BigInt from index k upwards, i.e. floor(this / 2^k)
      */
-    protected void shiftBitsDown() {
-        boolean carry = false;
-        boolean prevCarry = false;
+    public BigInt highBits(int k) {
+        if (k <= 0) return this;
 
-        int digitCount = this.digitCount();
+        return this.shiftBits(-k);
+    }
 
-        for (int i = digitCount - 1; i >= 0; i--) {
-            int digit = this.getDigit(i);
+    /**
+     * Returns true if the bit at the specified zero-based index is set
+     */
+    public boolean testBit(int bitIndex) {
+        return (this.getDigit(bitIndex >>> 5) & (1 << (bitIndex & 31))) != 0;
+    }
 
-            carry = (digit & 1) != 0;
+    /**
+     * Returns a copy of this BigInt with the bit at the specified index set to 1
+     */
+    public BigInt setBit(int bitIndex) {
+        if (this.testBit(bitIndex)) return this;
+
+        int[] result = Arrays.copyOf(this.digits, Math.max(this.length, (bitIndex >>> 5) + 1));
+        result[bitIndex >>> 5] |= 1 << (bitIndex & 31);
 
-            digit >>>= 1;
+        return BigInt.wrap(result);
+    }
+
+    /**
+     * Returns a copy of this BigInt with the bit at the specified index set to 0
+     */
+    public BigInt clearBit(int bitIndex) {
+        if (!this.testBit(bitIndex)) return this;
 
-            if (prevCarry) digit += Constants.BIT_MASKS[31];
+        int[] result = Arrays.copyOf(this.digits, this.length);
+        result[bitIndex >>> 5] &= ~(1 << (bitIndex & 31));
 
-            this.setDigit(digit, i);
+        return BigInt.wrap(result);
+    }
 
-            prevCarry = carry;
+    /**
+     * Returns a copy of this BigInt with the bit at the specified index inverted
+     */
+    public BigInt flipBit(int bitIndex) {
+        return this.testBit(bitIndex) ? this.clearBit(bitIndex) : this.setBit(bitIndex);
+    }
+
+    /**
+     * Returns the bitwise AND of this BigInt and the given BigInt
+     */
+    public BigInt and(BigInt other) {
+        int[] result = new int[Math.max(Math.min(this.length, other.length), 1)];
+
+        for (int i = 0; i < Math.min(this.length, other.length); i++) {
+            result[i] = this.digits[i] & other.digits[i];
         }
+
+        return BigInt.wrap(result);
     }
 
     /**
-     * Returns a copy of this value, where the bits have been shifted by the given number of bits
-     * @param bits The number of bits to move - positive moves bits up, negative down, and 0 is unchanged
+     * Returns the bitwise OR of this BigInt and the given BigInt
      */
-    public BigInt shiftBits(int bits) {
-        BigInt result = new BigInt(this.digits);
+    public BigInt or(BigInt other) {
+        BigInt longer = this.length >= other.length ? this : other;
+        BigInt shorter = longer == this ? other : this;
+
+        int[] result = Arrays.copyOf(longer.digits, longer.digitCount());
 
-        if (bits / 32 != 0)
-            result = result.shiftDigits(bits / 32);
+        for (int i = 0; i < shorter.length; i++) {
+            result[i] |= shorter.digits[i];
+        }
 
-        // N.B.: in Java, -33 mod 32 = -1
-        bits = bits % 32;
+        return BigInt.wrap(result);
+    }
 
-        if (bits >= 0) {
-            for (int i = 0; i < bits; i++) {
-                result.shiftBitsUp();
-            }
-        } else {
-            bits = -bits;
-            for (int i = 0; i < bits; i++) {
-                result.shiftBitsDown();
-            }
+    /**
+     * Returns the bitwise XOR of this BigInt and the given BigInt
+     */
+    public BigInt xor(BigInt other) {
+        BigInt longer = this.length >= other.length ? this : other;
+        BigInt shorter = longer == this ? other : this;
+
+        int[] result = Arrays.copyOf(longer.digits, longer.digitCount());
+
+        for (int i = 0; i < shorter.length; i++) {
+            result[i] ^= shorter.digits[i];
         }
 
-        return result;
+        return BigInt.wrap(result);
     }
 
     /**
-     * Masks off the lowest-order bits of this BigInt
-     * @param bits The number of bits to preserve; for example, 4 will keep the lowest 4 bits as they are and set all other bits to 0
+     * Returns the bits of this BigInt that are not set in the given BigInt, i.e. this AND (NOT other)
      */
-    protected BigInt maskLowerBits(int bits) {
-        int[] newDigits = Arrays.copyOf(this.digits, MathUtils.divCeil(bits, 32));
+    public BigInt andNot(BigInt other) {
+        int[] result = Arrays.copyOf(this.digits, this.digitCount());
+
+        for (int i = 0; i < Math.min(this.length, other.length); i++) {
+            result[i] &= ~other.digits[i];
+        }
+
+        return BigInt.wrap(result);
+    }
+
+    /**
+     * Returns the bitwise NOT of the lowest bits of this BigInt - BigInt has no sign, so the complement is only taken within the given width
+     * @param bits The number of bits to invert, where every bit above this is 0 in the result
+     */
+    public BigInt not(int bits) {
+        if (bits <= 0) return new BigInt(0);
+
+        int[] result = new int[MathUtils.divCeil(bits, 32)];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ~this.getDigit(i);
+        }
 
         if (bits % 32 != 0) {
-            // If the mask does not align with a digit,
-            // then mask off the last bits of the last digit that are not needed
-            newDigits[newDigits.length - 1] &= 0xFFFFFFFF >>> (32 - (bits % 32));
+            result[result.length - 1] &= 0xFFFFFFFF >>> (32 - (bits % 32));
         }
 
-        return new BigInt(newDigits);
+        return BigInt.wrap(result);
     }
 
     /**
@@ -236,20 +409,6 @@ public class BigInt implements Comparable<BigInt> {
         return 0;
     }
 
-    /**
-     * Sets the digit at the specified index
-     * @param digit The base 2^32 digit
-     * @param index The index of the digit - less than 0 will be ignored, greater than the digit count is automatically handled
-     */
-    protected void setDigit(int digit, int index) {
-        if (index < 0) return;
-        if (index >= this.digits.length) {
-            this.digits = Arrays.copyOf(this.digits, index + 1);
-        }
-
-        this.digits[index] = digit;
-    }
-
     /**
      * Shifts all digits along, ignoring any fractional components
      * @param shift The number of digits to move along (like multiplying by base^shift)
@@ -273,61 +432,17 @@ public class BigInt implements Comparable<BigInt> {
         return new BigInt(newDigits);
     }
 
-    /**
-     * Adds the given digit to the digit at ths specified index (handles carry)
-     * @param digit The base 2^32 digit to add
-     * @param index The index of the digit to add to
-     */
-    protected void addToDigit(int digit, int index) {
-        boolean carry = false;
-        long unsignedDigit = digit & Constants.UNSIGNED_INT_MASK;
-        long unsignedCurrentDigit = this.getDigit(index) & Constants.UNSIGNED_INT_MASK;
-        long sum = unsignedDigit + unsignedCurrentDigit;
-
-        if (sum >= Constants.TWO_POW_32) {
-            sum %= Constants.TWO_POW_32;
-            carry = true;
-        }
-
-        this.setDigit((int)sum, index);
-
-        if (carry) this.addToDigit(1, index + 1);
-    }
-
-    /**
-     * Subtracts the given digit to the digit at ths specified index (handles carry)
-     * @param digit The base 2^32 digit to subtract
-     * @param index The index of the digit to subtract from
-     */
-    protected void subtractFromDigit(int digit, int index) {
-        // N.B.: This will run forever if the digit to subtract is larger than the digit at this position
-        // and this digit is the highest-order digit
-        boolean carry = false;
-        long unsignedDigit = digit & Constants.UNSIGNED_INT_MASK;
-        long unsignedCurrentDigit = this.getDigit(index) & Constants.UNSIGNED_INT_MASK;
-        long diff = unsignedCurrentDigit - unsignedDigit;
-
-        if (diff < 0) {
-            diff += Constants.TWO_POW_32;
-            carry = true;
-        }
-
-        this.setDigit((int)diff, index);
-
-        if (carry) this.subtractFromDigit(1, index + 1);
-    }
-
     /**
      * Returns the result of the addition of this BigInt and the given BigInt
      */
     public BigInt add(BigInt other) {
-        BigInt result = new BigInt(this.digits);
+        int thisDigitCount = this.digitCount();
+        int otherDigitCount = other.digitCount();
 
-        for (int i = 0; i < other.digitCount(); i++) {
-            result.addToDigit(other.getDigit(i), i);
-        }
+        int[] result = new int[Math.max(thisDigitCount, otherDigitCount) + 1];
+        DigitArithmetic.add(this.digits, thisDigitCount, other.digits, otherDigitCount, result);
 
-        return result;
+        return BigInt.wrap(result);
     }
 
     /**
@@ -335,31 +450,23 @@ public class BigInt implements Comparable<BigInt> {
      * @param other The value to add to this BigInt - negative numbers will subtract
      */
     public BigInt add(int other) {
-        BigInt result = new BigInt(this.digits);
-
-        if (other >= 0) {
-            result.addToDigit(other, 0);
-        } else {
-            result.subtractFromDigit(-other, 0);
-        }
-
-        return result;
+        // new BigInt(other) ignores the sign, so it is the magnitude of other
+        return other >= 0 ? this.add(new BigInt(other)) : this.subtract(new BigInt(other));
     }
 
     /**
      * Returns the result of this BigInt minus the given BigInt
-     * @throws Error If the other BigInt is larger than this BigInt
+     * @throws Error If the other BigInt is larger than this BigInt - use SignedBigInt when the result may be negative
      */
     public BigInt subtract(BigInt other) {
-        if (this.lessThan(other)) throw new Error("Cannot subtract a number from a smaller number (yet)");
+        if (this.lessThan(other)) throw new Error("Cannot subtract a number from a smaller number");
 
-        BigInt result = new BigInt(this.digits);
+        int thisDigitCount = this.digitCount();
 
-        for (int i = 0; i < other.digitCount(); i++) {
-            result.subtractFromDigit(other.getDigit(i), i);
-        }
+        int[] result = new int[thisDigitCount];
+        DigitArithmetic.subtract(this.digits, thisDigitCount, other.digits, other.digitCount(), result);
 
-        return result;
+        return BigInt.wrap(result);
     }
 
     /**
@@ -367,132 +474,50 @@ public class BigInt implements Comparable<BigInt> {
      * @param other The value to subtract from this BigInt - negative numbers will add
      */
     public BigInt subtract(int other) {
-        BigInt result = new BigInt(this.digits);
-
-        if (other >= 0) {
-            result.subtractFromDigit(other, 0);
-        } else {
-            result.addToDigit(-other, 0);
-        }
-
-        return result;
+        return other >= 0 ? this.subtract(new BigInt(other)) : this.add(new BigInt(other));
     }
 
+    /**
+     * Returns the value of (this - other) mod modulus, which is never negative
+     */
     public BigInt subtractMod(BigInt other, BigInt modulus) {
-        if (this.greaterThanOrEqual(other)) return this.subtract(other);
-        return modulus.subtract(other.subtract(this).mod(modulus));
+        return new SignedBigInt(this).subtract(other).mod(modulus);
     }
 
     /**
      * Returns the result of the multiplication of this BigInt and the given BigInt
      */
     public BigInt multiply(BigInt other) {
-        if (this.equals(other)) {
-            return this.square();
-        } else {
-            BigInt result = new BigInt(0);
-
-            long intMask = Constants.TWO_POW_32 - 1;
+        if (this.equals(other)) return this.square();
 
-            for (int i = 0; i < this.digitCount(); i++) {
-                long thisDigit = this.getDigit(i) & Constants.UNSIGNED_INT_MASK;
-                for (int j = 0; j < other.digitCount(); j++) {
-                    long product = thisDigit * (other.getDigit(j) & Constants.UNSIGNED_INT_MASK);
-                    if (product == 0) continue;
-
-                    int digit1 = (int)(product & intMask);
-                    int digit2 = (int)(product >>> 32);
-
-                    result.addToDigit(digit1, i + j);
-
-                    if (digit2 != 0)
-                        result.addToDigit(digit2, i + j + 1);
-                }
-            }
-
-            return result;
-        }
+        return BigInt.wrap(Multiplication.multiply(this.digits, this.digitCount(), other.digits, other.digitCount()));
     }
 
+    /**
+     * Returns the result of this BigInt multiplied by itself
+     */
     public BigInt square() {
-        BigInt result = new BigInt(0);
-
-        long intMask = Constants.TWO_POW_32 - 1;
-
-        for (int i = 0; i < this.digitCount(); i++) {
-            long thisDigit = this.getDigit(i) & Constants.UNSIGNED_INT_MASK;
-            for (int j = 0; j < i; j++) {
-                long product = thisDigit * (this.getDigit(j) & Constants.UNSIGNED_INT_MASK);
-                if (product == 0) continue;
-
-                int digit1 = (int)(product & intMask);
-                int digit2 = (int)(product >>> 32);
-
-                result.addToDigit(digit1, i + j);
-
-                if (digit2 != 0)
-                    result.addToDigit(digit2, i + j + 1);
-            }
-        }
-
-        result.shiftBitsUp();
-
-        for (int i = 0; i < this.digitCount(); i++) {
-            long product = this.getDigit(i) & Constants.UNSIGNED_INT_MASK;
-
-            if (product == 0) continue;
-
-            product = product * product;
-
-            int digit1 = (int)(product & intMask);
-            int digit2 = (int)(product >>> 32);
-
-            result.addToDigit(digit1, 2 * i);
-
-            if (digit2 != 0)
-                result.addToDigit(digit2, 2 * i + 1);
-        }
-
-        return result;
-    }
-
-    protected BigInt[] getPowerOf2Multiples(int n) {
-        if (this.powerOf2Multiples == null) {
-            this.powerOf2Multiples = new BigInt[] {this};
-        }
-
-        if (n > this.powerOf2Multiples.length) {
-            int prevLength = this.powerOf2Multiples.length;
-            this.powerOf2Multiples = Arrays.copyOf(this.powerOf2Multiples, n);
-
-            for (int i = prevLength; i < this.powerOf2Multiples.length; i++) {
-                this.powerOf2Multiples[i] = new BigInt(this.powerOf2Multiples[i - 1].exportToIntArray());
-                this.powerOf2Multiples[i].shiftBitsUp();
-            }
-        }
-
-        return Arrays.copyOf(this.powerOf2Multiples, n);
+        return BigInt.wrap(Multiplication.square(this.digits, this.digitCount()));
     }
 
     /**
      * Returns the DivisionResult (quotient and remainder) of this BigInt divided by the given BigInt divisor
+     * @throws Error If the divisor is zero
      */
     public BigInt.DivisionResult divide(BigInt divisor) {
+        if (divisor.equals(0)) throw new Error("Cannot divide by zero");
+
         if (this.lessThan(divisor)) return new BigInt.DivisionResult(new BigInt(0), this);
 
-        BigInt remainder = new BigInt(this.exportToIntArray());
-        BigInt quotient = new BigInt(0);
+        int thisDigitCount = this.digitCount();
+        int divisorDigitCount = divisor.digitCount();
 
-        BigInt[] pow2Multiples = divisor.getPowerOf2Multiples(this.bitCount() - divisor.bitCount() + 1);
+        int[] quotient = new int[thisDigitCount - divisorDigitCount + 1];
+        int[] remainder = new int[divisorDigitCount];
 
-        for (int i = pow2Multiples.length - 1; i >= 0; i--) {
-            if (remainder.greaterThanOrEqual(pow2Multiples[i])) {
-                remainder = remainder.subtract(pow2Multiples[i]);
-                quotient.setBitAt(1, i);
-            }
-        }
+        DigitArithmetic.divide(this.digits, thisDigitCount, divisor.digits, divisorDigitCount, quotient, remainder);
 
-        return new BigInt.DivisionResult(quotient, remainder);
+        return new BigInt.DivisionResult(BigInt.wrap(quotient), BigInt.wrap(remainder));
     }
 
     /**
@@ -509,34 +534,62 @@ public class BigInt implements Comparable<BigInt> {
         return this.divide(modulus).remainder();
     }
 
+    /**
+     * Returns the remainder of this BigInt modulo the given positive int, in one pass over the digits
+     * @throws Error If the modulus is not positive
+     */
+    public int modInt(int modulus) {
+        if (modulus <= 0) throw new Error("Modulus must be positive");
+
+        return DigitArithmetic.remainder(this.digits, this.length, modulus);
+    }
+
+    /**
+     * Returns the remainder of this BigInt divided by the given int, which is treated as unsigned, as an unsigned int
+     * @throws Error If the divisor is zero
+     */
+    public int remainderUnsigned(int divisor) {
+        if (divisor == 0) throw new Error("Cannot divide by zero");
+
+        return DigitArithmetic.remainder(this.digits, this.length, divisor);
+    }
+
     /**
      * Returns the modular multiplicative inverse of this BigInt modulo the given BigInt modulus
+     * @return The inverse, or null if this BigInt and the modulus are not coprime
      */
     public BigInt modInverse(BigInt modulus) {
-        BigInt t = new BigInt(0);
-        BigInt r = modulus;
+        if (this.equals(0) || modulus.equals(0)) return null;
+
+        LehmerGcd lehmer = new LehmerGcd(this, modulus, true);
 
-        BigInt nextT = new BigInt(1);
-        BigInt nextR = this;
+        if (!lehmer.gcd().equals(1)) return null;
 
-        // Intermediate variable for swapping variables
-        BigInt tmp;
+        // The cofactor is between 1 and the modulus, and only equals the modulus when the modulus is 1
+        return lehmer.cofactor().mod(modulus);
+    }
 
-        while (!nextR.equals(0)) {
-            BigInt.DivisionResult divResult = r.divide(nextR);
+    /**
+     * Returns the inverse of this BigInt modulo 2^k, using Newton's method (Hensel lifting) from the inverse of the lowest digit
+     * @return The value x < 2^k, where (this * x) mod 2^k = 1
+     * @throws Error If this BigInt is even, since then there is no inverse
+     */
+    public BigInt inverseModPowerOfTwo(int k) {
+        if (this.getBitAt(0) == 0) throw new Error("Only odd numbers have an inverse modulo a power of two");
 
-            tmp = nextT;
-            nextT = t.subtractMod(divResult.quotient().multiply(nextT), modulus);
-            t = tmp;
+        BigInt x = BigInt.wrap(new int[] {DigitArithmetic.inverse(this.digits[0])});
 
-            r = nextR;
-            nextR = divResult.remainder();
-        }
+        // If a * x = 1 (mod 2^j), then a * x * (2 - a * x) = 1 (mod 2^(2j)), so each iteration doubles the number of correct bits
+        for (int bits = 32; bits < k; bits *= 2) {
+            int precision = Math.min(2 * bits, k);
+
+            BigInt ax = this.lowBits(precision).multiply(x).lowBits(precision);
+            BigInt twoMinusAx = new BigInt(1).shiftBits(precision).add(2).subtract(ax);
 
-        // r > 1 => No inverse
-        if (r.greaterThan(new BigInt(1))) return null;
+            x = x.multiply(twoMinusAx).lowBits(precision);
+        }
 
-        return t;
+        return x.lowBits(k);
     }
 
     /**
@@ -564,139 +617,179 @@ public class BigInt implements Comparable<BigInt> {
         if (modulus.getBitAt(0) == 1)
             return this.montgomeryPowMod(exponent, modulus);
 
-        BigInt result = new BigInt(1);
-        BigInt base = this;
+        if (modulus.equals(0)) throw new Error("Modulus must not be zero");
 
-        for (int i = 0; i < exponent.bitCount(); i++) {
-            if (exponent.getBitAt(i) == 1) {
-                result = result.multiply(base).mod(modulus);
-            }
-            base = base.square().mod(modulus);
-        }
+        // Split the modulus into q * 2^s with q odd, so that the odd part can use Montgomery multiplication
+        // and the power of two part only needs the lowest s bits of each product
+        int s = modulus.getLowestSetBit();
+        BigInt q = modulus.shiftBits(-s);
 
-        return result;
+        BigInt evenResult = this.powModPowerOfTwo(exponent, s);
+
+        if (q.equals(1)) return evenResult;
+
+        BigInt oddResult = this.montgomeryPowMod(exponent, q);
+
+        // Recombine with the CRT (Garner's formula): x = oddResult + q * (((evenResult - oddResult) * q^-1) mod 2^s),
+        // which is less than q * 2^s
+        BigInt difference = evenResult.add(new BigInt(1).shiftBits(s)).subtract(oddResult.lowBits(s)).lowBits(s);
+        BigInt h = difference.multiply(q.inverseModPowerOfTwo(s)).lowBits(s);
+
+        return oddResult.add(q.multiply(h));
     }
 
     /**
-     * Computes the value of this BigInt raised to the power of the given BigInt exponent, modulo the given BigInt modulus, using the Montgomery Multiplication method
+     * Computes the value of this BigInt raised to the power of the given BigInt exponent, modulo 2^bits
      *
-     * @param modulus The modulus, which must be odd
-     * @return The value of (this ^ exponent) mod modulus
+     * Only the lowest bits of each product are needed, so every multiplication skips the high half of the product.
      *
-     * @throws Error If the modulus is not odd
+     * @param bits The number of bits in the modulus, which must be at least 1
      */
-    protected BigInt montgomeryPowMod(BigInt exponent, BigInt modulus) {
-        if (modulus.getBitAt(0) != 1) throw new Error("Modulus must be odd for Montgomery Exponentation");
+    private BigInt powModPowerOfTwo(BigInt exponent, int bits) {
+        BigInt base = this.lowBits(bits);
 
-        // r = 2^k and m mod 2 = 1, therefore gcd(r, m) = 1
-        int k = modulus.bitCount();
-        BigInt r = new BigInt(1).shiftBits(k);
+        if (base.getBitAt(0) == 0) {
+            // Every factor of base contributes at least one factor of 2, so any exponent of bits or more gives 0
+            if (exponent.greaterThanOrEqual(new BigInt(bits))) return new BigInt(0);
+        } else {
+            // The odd values modulo 2^bits form a group whose order divides 2^bits
+            exponent = exponent.lowBits(bits);
+        }
 
-        BigInt rInverse = r.modInverse(modulus);
-        BigInt modulusDash = r.subtract(modulus.modInverse(r));
+        int n = MathUtils.divCeil(bits, 32);
 
-        // baseR = base * r mod modulus ('this' is the base)
-        BigInt baseR = this.shiftBits(k).mod(modulus);
-        // resultR = result * r (result initially 1)
-        BigInt resultR = r.mod(modulus);
+        int[] one = new int[n];
+        one[0] = 1;
 
-        for (int i = 0; i < exponent.bitCount(); i++) {
-            if (exponent.getBitAt(i) == 1) {
-                resultR = BigInt.montgomeryMultiplication(resultR, baseR, modulus, modulusDash, k);
-            }
+        return BigInt.wrap(new LowBitsExponentiation(bits).pow(Arrays.copyOf(base.digits, n), exponent, one));
+    }
 
-            baseR = BigInt.montgomeryMultiplication(baseR, baseR, modulus, modulusDash, k);
+    /**
+     * Returns the sliding window width to use for an exponent with the given number of bits
+     */
+    static int slidingWindowWidth(int exponentBits) {
+        int width = 1;
+
+        while (width <= Constants.SLIDING_WINDOW_THRESHOLDS.length && exponentBits > Constants.SLIDING_WINDOW_THRESHOLDS[width - 1]) {
+            width++;
         }
 
-        // result * r * r^-1 mod modulus = result
-        return resultR.multiply(rInverse).mod(modulus);
+        return width;
     }
 
     /**
-     * Performs Montgomery multiplication using the given values
+     * Computes the value of this BigInt raised to the power of the given BigInt exponent, modulo the given BigInt modulus, using the Montgomery Multiplication method
      *
-     * @param arModm The Montgomery form of a, which is (a * r) mod m
-     * @param brModm The Montgomery form of b, which is (b * r) mod m
-     * @param m The modulus
-     * @param mDash The the inverse of m that satisfies (m * mDash) mod r = r - 1
-     * @param k The number of bits in r, i.e. r = 2^k
+     * This sets up a new MontgomeryContext on every call; callers that use the same modulus repeatedly should keep their own MontgomeryContext instead.
      *
-     * @return The Montgomery form of (a * b), which is (a * b * r) mod m
+     * @param modulus The modulus, which must be odd
+     * @return The value of (this ^ exponent) mod modulus
+     *
+     * @throws Error If the modulus is not odd
      */
-    protected static BigInt montgomeryMultiplication(BigInt arModm, BigInt brModm, BigInt m, BigInt mDash, int k) {
-        BigInt t = arModm.multiply(brModm);
-
-        BigInt u = t.add(t.multiply(mDash).maskLowerBits(k).multiply(m)).shiftBits(-k);
-
-        if (u.greaterThanOrEqual(m)) u = u.subtract(m);
-
-        return u;
+    protected BigInt montgomeryPowMod(BigInt exponent, BigInt modulus) {
+        return new MontgomeryContext(modulus).powMod(this, exponent);
     }
 
     /**
-     * Uses the Miller-Rabin primality test to check whether or not this number is probably prime with 10 trials
+     * Uses the Baillie-PSW primality test to check whether or not this number is probably prime, which no known composite passes
      * @return True if probably prime, false if definitely not prime
      */
     public boolean isProbablePrime() {
-        return this.isProbablePrime(10);
+        int trialDivision = this.trialDivision();
+        if (trialDivision >= 0) return trialDivision == 1;
+
+        return this.passesBailliePsw();
     }
 
     /**
      * Uses the Miller-Rabin primality test to check whether or not this number is probably prime
-     * @param certainty The number of trials (more trials, more certainty)
+     * @param certainty The number of trials (more trials, more certainty) - see MathUtils.millerRabinRounds
      * @return True if probably prime, false if definitely not prime
      */
     public boolean isProbablePrime(int certainty) {
-        if (this.getBitAt(0) == 0) {
-            return this.equals(2);
-        }
+        int trialDivision = this.trialDivision();
+        if (trialDivision >= 0) return trialDivision == 1;
 
-        for (int i = 0; i < 256; i++) {
-            BigInt p = Constants.SMALL_PRIMES[i];
-
-            if (this.equals(p)) return true;
+        return this.passesMillerRabin(certainty);
+    }
 
-            if (p.greaterThan(this)) return false;
+    /**
+     * Checks this BigInt against the small primes
+     * @return 1 if this is a small prime, 0 if it is less than 2 or has a small prime factor, or -1 if it is neither
+     */
+    int trialDivision() {
+        if (this.getBitAt(0) == 0) {
+            return this.equals(2) ? 1 : 0;
+        }
 
-            if (MathUtils.gcd(this, p).equals(p)) return false;
+        // Every odd value up to the largest small prime is either one of the small primes or has one as a factor
+        if (this.length <= 1 && (this.getDigit(0) & Constants.UNSIGNED_INT_MASK) <= Constants.SMALL_PRIMES[Constants.SMALL_PRIMES.length - 1]) {
+            return Arrays.binarySearch(Constants.SMALL_PRIMES, this.getDigit(0)) >= 0 ? 1 : 0;
         }
 
-        BigInt nMinusOne = this.subtract(1);
+        return PrimeTable.SMALL_PRIMES.hasFactor(this) ? 0 : -1;
+    }
 
-        // n - 1 = 2^s * d
-        int s = nMinusOne.getLowestSetBit();
-        BigInt d = nMinusOne.shiftBits(-s);
+    /**
+     * Runs the given number of rounds of the Miller-Rabin test with random bases, without any trial division first
+     *
+     * This BigInt must be odd and greater than 3; a sieve that has already ruled out small factors can call this directly.
+     */
+    boolean passesMillerRabin(int rounds) {
+        // The Montgomery parameters and the forms of 1 and n - 1 are only computed once for every round
+        MillerRabinTest test = new MillerRabinTest(this, new MontgomeryContext(this));
 
         Random r = new SecureRandom();
 
-        for (int i = 0; i < certainty; i++) {
+        for (int i = 0; i < rounds; i++) {
             BigInt a = MathUtils.randomBigInt(new BigInt(2), this.subtract(2), r);
 
-            BigInt x = a.powMod(d, this);
+            if (!test.isStrongProbablePrime(a)) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Runs the Baillie-PSW test, a base 2 strong probable prime test followed by a strong Lucas test, without any trial division first
+     *
+     * This BigInt must be odd and greater than 3; a sieve that has already ruled out small factors can call this directly.
+     */
+    boolean passesBailliePsw() {
+        MontgomeryContext context = new MontgomeryContext(this);
+
+        return new MillerRabinTest(this, context).isStrongProbablePrime(new BigInt(2)) && LucasTest.isStrongLucasProbablePrime(this, context);
+    }
 
-            if (!x.equals(1) && !x.equals(nMinusOne)) {
-                boolean solutionFound = false;
+    /**
+     * Returns the Jacobi symbol (this / n), which is 1 or -1 if this BigInt and n are coprime, or 0 if not
+     * @param n An odd modulus
+     * @throws Error If n is even
+     */
+    public int jacobi(BigInt n) {
+        if (n.getBitAt(0) == 0) throw new Error("The Jacobi symbol is only defined for odd n");
 
-                for (int j = 0; j < s; j++) {
-                    x = x.square().mod(this);
+        BigInt a = this.mod(n);
+        int result = 1;
 
-                    if (x.equals(1)) {
-                        return false;
-                    }
+        while (!a.equals(0)) {
+            // (2/n) is -1 when n = 3 or 5 (mod 8)
+            int zeros = a.getLowestSetBit();
+            a = a.shiftBits(-zeros);
 
-                    if (x.equals(nMinusOne)) {
-                        solutionFound = true;
-                        break;
-                    }
-                }
+            int nMod8 = n.getDigit(0) & 7;
+            if ((zeros & 1) == 1 && (nMod8 == 3 || nMod8 == 5)) result = -result;
 
-                if (!solutionFound) {
-                    return false;
-                }
-            }
+            // Quadratic reciprocity: (a/n) = -(n/a) when both are 3 (mod 4)
+            if ((a.getDigit(0) & 3) == 3 && (nMod8 & 3) == 3) result = -result;
+
+            BigInt remainder = n.mod(a);
+            n = a;
+            a = remainder;
         }
 
-        return true;
+        return n.equals(1) ? result : 0;
     }
 
     /**
@@ -705,12 +798,13 @@ public class BigInt implements Comparable<BigInt> {
      * @return A number less than 0 if this BigInt is less than the provided one, a number greater than 0 if this BigInt is greater than the provided one, or 0 if they are equal
      */
     public int compareTo(BigInt other) {
-        int diff = this.bitCount() - other.bitCount();
+        // Neither value has leading zero digits, so the one with more digits is larger
+        int diff = this.length - other.length;
 
         if (diff != 0) return diff;
 
-        for (int i = this.digitCount() - 1; i >= 0; i--) {
-            diff = MathUtils.unsignedIntCompare(this.getDigit(i), other.getDigit(i));
+        for (int i = this.length - 1; i >= 0; i--) {
+            diff = MathUtils.unsignedIntCompare(this.digits[i], other.digits[i]);
             if (diff != 0) return diff;
         }
 
@@ -738,7 +832,23 @@ public class BigInt implements Comparable<BigInt> {
     }
 
     public boolean equals(int other) {
-        return other >= 0 && this.digitCount() == 1 && this.digits[0] == other;
+        return other >= 0 && this.length <= 1 && this.getDigit(0) == other;
+    }
+
+    /**
+     * Returns the decimal representation of this BigInt
+     */
+    @Override
+    public String toString() {
+        return this.toString(10);
+    }
+
+    /**
+     * Returns the representation of this BigInt in the given radix, without leading zeros, using lowercase letters for the digits above 9
+     * @throws Error If the radix is not between 2 and 36
+     */
+    public String toString(int radix) {
+        return RadixConversion.toString(this, radix);
     }
 
     /**
@@ -754,17 +864,58 @@ public class BigInt implements Comparable<BigInt> {
      * Returns a little-endian array of bytes that represent this BigInt
      */
     public byte[] exportToByteArray() {
-        int [] digits = this.exportToIntArray();
-        byte[] output = new byte[digits.length * 4];
+        return this.exportToByteArray(ByteOrder.LITTLE_ENDIAN);
+    }
 
-        for (int i = 0; i < digits.length; i++) {
-            for (int j = 0; j < 4; j++) {
-                output[4*i + j] = (byte)((digits[i] >> (8 * j)) & 255);
-            }
+    /**
+     * Returns an array of bytes that represent this BigInt in the given byte order, without any leading high-order zeros
+     */
+    public byte[] exportToByteArray(ByteOrder order) {
+        byte[] output = new byte[this.byteCount()];
+        this.writeTo(output, 0, output.length, order);
+        return output;
+    }
+
+    /**
+     * Writes this BigInt to the given array as little-endian bytes, padded with high-order zeros to fill the range
+     * @param offset The index of the first byte to write
+     * @param length The number of bytes to write
+     * @throws Error If this BigInt needs more than the given number of bytes
+     */
+    public void writeTo(byte[] dest, int offset, int length) {
+        this.writeTo(dest, offset, length, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Writes this BigInt to the given array in the given byte order, padded with high-order zeros to fill the range
+     * @param offset The index of the first byte to write
+     * @param length The number of bytes to write
+     * @param order The byte order to write - with ByteOrder.BIG_ENDIAN the first byte is the most significant
+     * @throws Error If this BigInt needs more than the given number of bytes
+     */
+    public void writeTo(byte[] dest, int offset, int length, ByteOrder order) {
+        this.writeTo(ByteBuffer.wrap(dest, offset, length).order(order));
+    }
+
+    /**
+     * Writes this BigInt to the remaining bytes of the given buffer (from its position to its limit), in the buffer's byte order,
+     * padded with high-order zeros to fill them - the buffer's position is not changed
+     * @throws Error If this BigInt needs more bytes than the buffer has remaining
+     */
+    public void writeTo(ByteBuffer buffer) {
+        int start = buffer.position();
+        int byteCount = buffer.remaining();
+        boolean littleEndian = buffer.order() == ByteOrder.LITTLE_ENDIAN;
+
+        if (this.byteCount() > byteCount) throw new Error("BigInt needs " + this.byteCount() + " bytes, but only " + byteCount + " are available");
+
+        for (int i = 0; i < byteCount / 4; i++) {
+            buffer.putInt(littleEndian ? start + (4 * i) : start + byteCount - (4 * (i + 1)), this.getDigit(i));
         }
 
-        // Resize it to remove any leading high-order zeros
-        return Arrays.copyOf(output, this.byteCount());
+        for (int i = byteCount & ~3; i < byteCount; i++) {
+            buffer.put(littleEndian ? start + i : start + byteCount - 1 - i, (byte)(this.getDigit(i / 4) >>> (8 * (i % 4))));
+        }
     }
 }
 
@@ -5,6 +5,91 @@ public abstract class Constants {
 
     public static final long UNSIGNED_INT_MASK = 0xFFFFFFFFL;
 
+    /**
+     * The number of digits in the smaller operand at which schoolbook multiplication and squaring switch from base 2^32 to base 2^64 digits
+     */
+    public static final int LONG_DIGIT_THRESHOLD = 8;
+
+    /**
+     * The number of digits in the smaller operand at which multiplication switches from the schoolbook method to Karatsuba
+     */
+    public static final int KARATSUBA_THRESHOLD = 48;
+
+    /**
+     * The number of digits in the smaller operand at which multiplication switches from Karatsuba to Toom-Cook 3-way
+     */
+    public static final int TOOM_COOK_THRESHOLD = 384;
+
+    /**
+     * The number of digits at which squaring switches from the schoolbook method to Karatsuba
+     */
+    public static final int KARATSUBA_SQUARE_THRESHOLD = 160;
+
+    /**
+     * The number of digits at which squaring switches from Karatsuba to Toom-Cook 3-way
+     */
+    public static final int TOOM_COOK_SQUARE_THRESHOLD = 512;
+
+    /**
+     * The number of digits in the smaller operand at which multiplication switches from Toom-Cook 3-way to number-theoretic transforms
+     */
+    public static final int NTT_THRESHOLD = 4096;
+
+    /**
+     * The number of digits at which squaring switches from Toom-Cook 3-way to number-theoretic transforms
+     */
+    public static final int NTT_SQUARE_THRESHOLD = 4096;
+
+    /**
+     * The default number of digits in the smaller operand below which ParallelMultiplier computes a product on a single thread
+     */
+    public static final int PARALLEL_MULTIPLY_THRESHOLD = 2048;
+
+    /**
+     * The number of digits below which BigInt.toString converts one word at a time rather than dividing and conquering
+     */
+    public static final int RADIX_TO_STRING_THRESHOLD = 32;
+
+    /**
+     * The number of digits below which BigInt.parse converts one word at a time rather than dividing and conquering
+     */
+    public static final int RADIX_PARSE_THRESHOLD = 128;
+
+    /**
+     * The number of digits up to which the powers of each radix used by BigInt.toString and BigInt.parse are cached
+     */
+    public static final int RADIX_POWER_CACHE_DIGITS = 1 << 18;
+
+    /**
+     * The bit lengths from which each of MILLER_RABIN_ROUNDS applies, in decreasing order
+     */
+    public static final int[] MILLER_RABIN_ROUNDS_MIN_BITS = new int[] { 1536, 1024, 512, 256, 224, 0 };
+
+    /**
+     * The number of Miller-Rabin rounds with random bases for candidates of each size in MILLER_RABIN_ROUNDS_MIN_BITS
+     *
+     * From 512 bits these are the rounds for RSA primes p and q in FIPS 186-4 Table C.3, for errors of at most 2^-100,
+     * 2^-112 and 2^-128, which rely on the candidates being random. Smaller sizes use the rounds for the DSA prime q in
+     * Table C.2, whose errors of 2^-80 to 2^-128 hold for any candidate.
+     */
+    public static final int[] MILLER_RABIN_ROUNDS = new int[] { 4, 5, 5, 64, 56, 40 };
+
+    /**
+     * The limit below which every odd prime is used to sieve prime candidates
+     */
+    public static final int SIEVE_PRIME_LIMIT = 1 << 15;
+
+    /**
+     * The number of odd candidates that are sieved at once when searching for a prime
+     */
+    public static final int SIEVE_WINDOW = 2048;
+
+    /**
+     * The largest exponent bit lengths for each sliding window width, starting from a width of 1;
+     * exponents longer than the last entry use a width of one more than the number of entries
+     */
+    public static final int[] SLIDING_WINDOW_THRESHOLDS = new int[] {7, 25, 81, 241, 673, 1793};
+
     public static final int[] BIT_MASKS = new int[] {
         1,
         2,
@@ -40,263 +125,265 @@ public abstract class Constants {
         (int)2147483648L
     };
 
-    public static final BigInt[] SMALL_PRIMES = new BigInt[] {
-        new BigInt(2),
-        new BigInt(3),
-        new BigInt(5),
-        new BigInt(7),
-        new BigInt(9),
-        new BigInt(11),
-        new BigInt(13),
-        new BigInt(17),
-        new BigInt(19),
-        new BigInt(23),
-        new BigInt(25),
-        new BigInt(29),
-        new BigInt(31),
-        new BigInt(37),
-        new BigInt(41),
-        new BigInt(43),
-        new BigInt(47),
-        new BigInt(49),
-        new BigInt(53),
-        new BigInt(59),
-        new BigInt(61),
-        new BigInt(67),
-        new BigInt(71),
-        new BigInt(73),
-        new BigInt(79),
-        new BigInt(83),
-        new BigInt(89),
-        new BigInt(97),
-        new BigInt(101),
-        new BigInt(103),
-        new BigInt(107),
-        new BigInt(109),
-        new BigInt(113),
-        new BigInt(121),
-        new BigInt(127),
-        new BigInt(131),
-        new BigInt(137),
-        new BigInt(139),
-        new BigInt(149),
-        new BigInt(151),
-        new BigInt(157),
-        new BigInt(163),
-        new BigInt(167),
-        new BigInt(169),
-        new BigInt(173),
-        new BigInt(179),
-        new BigInt(181),
-        new BigInt(191),
-        new BigInt(193),
-        new BigInt(197),
-        new BigInt(199),
-        new BigInt(211),
-        new BigInt(223),
-        new BigInt(227),
-        new BigInt(229),
-        new BigInt(233),
-        new BigInt(239),
-        new BigInt(241),
-        new BigInt(251),
-        new BigInt(257),
-        new BigInt(263),
-        new BigInt(269),
-        new BigInt(271),
-        new BigInt(277),
-        new BigInt(281),
-        new BigInt(283),
-        new BigInt(289),
-        new BigInt(293),
-        new BigInt(307),
-        new BigInt(311),
-        new BigInt(313),
-        new BigInt(317),
-        new BigInt(331),
-        new BigInt(337),
-        new BigInt(347),
-        new BigInt(349),
-        new BigInt(353),
-        new BigInt(359),
-        new BigInt(361),
-        new BigInt(367),
-        new BigInt(373),
-        new BigInt(379),
-        new BigInt(383),
-        new BigInt(389),
-        new BigInt(397),
-        new BigInt(401),
-        new BigInt(409),
-        new BigInt(419),
-        new BigInt(421),
-        new BigInt(431),
-        new BigInt(433),
-        new BigInt(439),
-        new BigInt(443),
-        new BigInt(449),
-        new BigInt(457),
-        new BigInt(461),
-        new BigInt(463),
-        new BigInt(467),
-        new BigInt(479),
-        new BigInt(487),
-        new BigInt(491),
-        new BigInt(499),
-        new BigInt(503),
-        new BigInt(509),
-        new BigInt(521),
-        new BigInt(523),
-        new BigInt(529),
-        new BigInt(541),
-        new BigInt(547),
-        new BigInt(557),
-        new BigInt(563),
-        new BigInt(569),
-        new BigInt(571),
-        new BigInt(577),
-        new BigInt(587),
-        new BigInt(593),
-        new BigInt(599),
-        new BigInt(601),
-        new BigInt(607),
-        new BigInt(613),
-        new BigInt(617),
-        new BigInt(619),
-        new BigInt(631),
-        new BigInt(641),
-        new BigInt(643),
-        new BigInt(647),
-        new BigInt(653),
-        new BigInt(659),
-        new BigInt(661),
-        new BigInt(673),
-        new BigInt(677),
-        new BigInt(683),
-        new BigInt(691),
-        new BigInt(701),
-        new BigInt(709),
-        new BigInt(719),
-        new BigInt(727),
-        new BigInt(733),
-        new BigInt(739),
-        new BigInt(743),
-        new BigInt(751),
-        new BigInt(757),
-        new BigInt(761),
-        new BigInt(769),
-        new BigInt(773),
-        new BigInt(787),
-        new BigInt(797),
-        new BigInt(809),
-        new BigInt(811),
-        new BigInt(821),
-        new BigInt(823),
-        new BigInt(827),
-        new BigInt(829),
-        new BigInt(839),
-        new BigInt(841),
-        new BigInt(853),
-        new BigInt(857),
-        new BigInt(859),
-        new BigInt(863),
-        new BigInt(877),
-        new BigInt(881),
-        new BigInt(883),
-        new BigInt(887),
-        new BigInt(907),
-        new BigInt(911),
-        new BigInt(919),
-        new BigInt(929),
-        new BigInt(937),
-        new BigInt(941),
-        new BigInt(947),
-        new BigInt(953),
-        new BigInt(961),
-        new BigInt(967),
-        new BigInt(971),
-        new BigInt(977),
-        new BigInt(983),
-        new BigInt(991),
-        new BigInt(997),
-        new BigInt(1009),
-        new BigInt(1013),
-        new BigInt(1019),
-        new BigInt(1021),
-        new BigInt(1031),
-        new BigInt(1033),
-        new BigInt(1039),
-        new BigInt(1049),
-        new BigInt(1051),
-        new BigInt(1061),
-        new BigInt(1063),
-        new BigInt(1069),
-        new BigInt(1087),
-        new BigInt(1091),
-        new BigInt(1093),
-        new BigInt(1097),
-        new BigInt(1103),
-        new BigInt(1109),
-        new BigInt(1117),
-        new BigInt(1123),
-        new BigInt(1129),
-        new BigInt(1151),
-        new BigInt(1153),
-        new BigInt(1163),
-        new BigInt(1171),
-        new BigInt(1181),
-        new BigInt(1187),
-        new BigInt(1193),
-        new BigInt(1201),
-        new BigInt(1213),
-        new BigInt(1217),
-        new BigInt(1223),
-        new BigInt(1229),
-        new BigInt(1231),
-        new BigInt(1237),
-        new BigInt(1249),
-        new BigInt(1259),
-        new BigInt(1277),
-        new BigInt(1279),
-        new BigInt(1283),
-        new BigInt(1289),
-        new BigInt(1291),
-        new BigInt(1297),
-        new BigInt(1301),
-        new BigInt(1303),
-        new BigInt(1307),
-        new BigInt(1319),
-        new BigInt(1321),
-        new BigInt(1327),
-        new BigInt(1361),
-        new BigInt(1367),
-        new BigInt(1369),
-        new BigInt(1373),
-        new BigInt(1381),
-        new BigInt(1399),
-        new BigInt(1409),
-        new BigInt(1423),
-        new BigInt(1427),
-        new BigInt(1429),
-        new BigInt(1433),
-        new BigInt(1439),
-        new BigInt(1447),
-        new BigInt(1451),
-        new BigInt(1453),
-        new BigInt(1459),
-        new BigInt(1471),
-        new BigInt(1481),
-        new BigInt(1483),
-        new BigInt(1487),
-        new BigInt(1489),
-        new BigInt(1493),
-        new BigInt(1499),
-        new BigInt(1511),
-        new BigInt(1523),
-        new BigInt(1531),
-        new BigInt(1543),
-        new BigInt(1549),
-        new BigInt(1553),
-        new BigInt(1559)
+    /**
+     * The first 256 primes, from 2 to 1619
+     */
+    public static final int[] SMALL_PRIMES = new int[] {
+        2,
+        3,
+        5,
+        7,
+        11,
+        13,
+        17,
+        19,
+        23,
+        29,
+        31,
+        37,
+        41,
+        43,
+        47,
+        53,
+        59,
+        61,
+        67,
+        71,
+        73,
+        79,
+        83,
+        89,
+        97,
+        101,
+        103,
+        107,
+        109,
+        113,
+        127,
+        131,
+        137,
+        139,
+        149,
+        151,
+        157,
+        163,
+        167,
+        173,
+        179,
+        181,
+        191,
+        193,
+        197,
+        199,
+        211,
+        223,
+        227,
+        229,
+        233,
+        239,
+        241,
+        251,
+        257,
+        263,
+        269,
+        271,
+        277,
+        281,
+        283,
+        293,
+        307,
+        311,
+        313,
+        317,
+        331,
+        337,
+        347,
+        349,
+        353,
+        359,
+        367,
+        373,
+        379,
+        383,
+        389,
+        397,
+        401,
+        409,
+        419,
+        421,
+        431,
+        433,
+        439,
+        443,
+        449,
+        457,
+        461,
+        463,
+        467,
+        479,
+        487,
+        491,
+        499,
+        503,
+        509,
+        521,
+        523,
+        541,
+        547,
+        557,
+        563,
+        569,
+        571,
+        577,
+        587,
+        593,
+        599,
+        601,
+        607,
+        613,
+        617,
+        619,
+        631,
+        641,
+        643,
+        647,
+        653,
+        659,
+        661,
+        673,
+        677,
+        683,
+        691,
+        701,
+        709,
+        719,
+        727,
+        733,
+        739,
+        743,
+        751,
+        757,
+        761,
+        769,
+        773,
+        787,
+        797,
+        809,
+        811,
+        821,
+        823,
+        827,
+        829,
+        839,
+        853,
+        857,
+        859,
+        863,
+        877,
+        881,
+        883,
+        887,
+        907,
+        911,
+        919,
+        929,
+        937,
+        941,
+        947,
+        953,
+        967,
+        971,
+        977,
+        983,
+        991,
+        997,
+        1009,
+        1013,
+        1019,
+        1021,
+        1031,
+        1033,
+        1039,
+        1049,
+        1051,
+        1061,
+        1063,
+        1069,
+        1087,
+        1091,
+        1093,
+        1097,
+        1103,
+        1109,
+        1117,
+        1123,
+        1129,
+        1151,
+        1153,
+        1163,
+        1171,
+        1181,
+        1187,
+        1193,
+        1201,
+        1213,
+        1217,
+        1223,
+        1229,
+        1231,
+        1237,
+        1249,
+        1259,
+        1277,
+        1279,
+        1283,
+        1289,
+        1291,
+        1297,
+        1301,
+        1303,
+        1307,
+        1319,
+        1321,
+        1327,
+        1361,
+        1367,
+        1373,
+        1381,
+        1399,
+        1409,
+        1423,
+        1427,
+        1429,
+        1433,
+        1439,
+        1447,
+        1451,
+        1453,
+        1459,
+        1471,
+        1481,
+        1483,
+        1487,
+        1489,
+        1493,
+        1499,
+        1511,
+        1523,
+        1531,
+        1543,
+        1549,
+        1553,
+        1559,
+        1567,
+        1571,
+        1579,
+        1583,
+        1597,
+        1601,
+        1607,
+        1609,
+        1613,
+        1619
     };
 }
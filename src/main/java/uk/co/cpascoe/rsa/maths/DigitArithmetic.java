@@ -0,0 +1,496 @@
+package uk.co.cpascoe.rsa.maths;
+
+/**
+ * Low-level arithmetic on little-endian arrays of base 2^32 digits, used to implement BigInt
+ *
+ * Each method takes the arrays along with the number of digits in use, so that the arrays may be longer than the values they hold.
+ * Results are written to a caller-supplied array, which must already be large enough to hold them.
+ */
+abstract class DigitArithmetic {
+    /**
+     * Returns the number of digits of a that are in use, once any high-order zero digits are ignored
+     */
+    static int normalisedLength(int[] a, int length) {
+        while (length > 0 && a[length - 1] == 0) {
+            length--;
+        }
+
+        return length;
+    }
+
+    /**
+     * Returns the inverse of the given odd digit modulo 2^32
+     */
+    static int inverse(int digit) {
+        // Newton's method doubles the number of correct low-order bits each iteration,
+        // and every odd number is its own inverse modulo 8
+        int inverse = digit;
+
+        for (int i = 0; i < 4; i++) {
+            inverse *= 2 - digit * inverse;
+        }
+
+        return inverse;
+    }
+
+    /**
+     * Adds b to a, writing the sum to result
+     *
+     * @param result The array to write to, with a length of at least max(aLength, bLength) + 1 - it may be the same array as a or b
+     * @return The number of digits written to result
+     */
+    static int add(int[] a, int aLength, int[] b, int bLength, int[] result) {
+        if (aLength < bLength) {
+            return DigitArithmetic.add(b, bLength, a, aLength, result);
+        }
+
+        long carry = 0;
+        int i = 0;
+
+        for (; i < bLength; i++) {
+            long sum = (a[i] & Constants.UNSIGNED_INT_MASK) + (b[i] & Constants.UNSIGNED_INT_MASK) + carry;
+            result[i] = (int)sum;
+            carry = sum >>> 32;
+        }
+
+        for (; i < aLength; i++) {
+            long sum = (a[i] & Constants.UNSIGNED_INT_MASK) + carry;
+            result[i] = (int)sum;
+            carry = sum >>> 32;
+        }
+
+        result[i] = (int)carry;
+
+        return aLength + 1;
+    }
+
+    /**
+     * Subtracts b from a, writing the difference to result
+     *
+     * @param a The minuend, which must not be less than b
+     * @param result The array to write to, with a length of at least aLength - it may be the same array as a or b
+     * @return The number of digits written to result
+     */
+    static int subtract(int[] a, int aLength, int[] b, int bLength, int[] result) {
+        long borrow = 0;
+        int i = 0;
+
+        for (; i < bLength; i++) {
+            long diff = (a[i] & Constants.UNSIGNED_INT_MASK) - (b[i] & Constants.UNSIGNED_INT_MASK) - borrow;
+            result[i] = (int)diff;
+            borrow = diff >>> 63;
+        }
+
+        for (; i < aLength; i++) {
+            long diff = (a[i] & Constants.UNSIGNED_INT_MASK) - borrow;
+            result[i] = (int)diff;
+            borrow = diff >>> 63;
+        }
+
+        return aLength;
+    }
+
+    /**
+     * Adds x to result, starting at the given digit offset in result, and propagates any carry
+     *
+     * @param result The array to add to, which must be long enough to hold the sum
+     */
+    static void addTo(int[] result, int offset, int[] x, int xLength) {
+        long carry = 0;
+        int i = 0;
+
+        for (; i < xLength; i++) {
+            long sum = (result[offset + i] & Constants.UNSIGNED_INT_MASK) + (x[i] & Constants.UNSIGNED_INT_MASK) + carry;
+            result[offset + i] = (int)sum;
+            carry = sum >>> 32;
+        }
+
+        for (i += offset; carry != 0; i++) {
+            long sum = (result[i] & Constants.UNSIGNED_INT_MASK) + carry;
+            result[i] = (int)sum;
+            carry = sum >>> 32;
+        }
+    }
+
+    /**
+     * Computes x * p + y * q, writing the sum to result
+     *
+     * @param p A multiplier less than 2^31
+     * @param q A multiplier less than 2^31
+     * @param length The number of digits to read from both x and y
+     * @param result The array to write to, with a length of at least length + 1 - it may be the same array as x or y
+     * @return The number of digits written to result
+     */
+    static int multiplyAdd(int[] x, long p, int[] y, long q, int length, int[] result) {
+        long carry = 0;
+
+        for (int i = 0; i < length; i++) {
+            // Both products are less than 2^63, so the sum can't overflow 64 unsigned bits
+            long sum = (x[i] & Constants.UNSIGNED_INT_MASK) * p + (y[i] & Constants.UNSIGNED_INT_MASK) * q + carry;
+            result[i] = (int)sum;
+            carry = sum >>> 32;
+        }
+
+        result[length] = (int)carry;
+
+        return length + 1;
+    }
+
+    /**
+     * Computes x * p - y * q, which must not be negative, writing the difference to result
+     *
+     * @param p A multiplier less than 2^31
+     * @param q A multiplier less than 2^31
+     * @param length The number of digits to read from both x and y, which must be enough to hold the difference
+     * @param result The array to write to, with a length of at least length - it may be the same array as x or y
+     * @return The number of digits written to result
+     */
+    static int multiplySubtract(int[] x, long p, int[] y, long q, int length, int[] result) {
+        long xCarry = 0;
+        long yCarry = 0;
+        long borrow = 0;
+
+        for (int i = 0; i < length; i++) {
+            long xProduct = (x[i] & Constants.UNSIGNED_INT_MASK) * p + xCarry;
+            long yProduct = (y[i] & Constants.UNSIGNED_INT_MASK) * q + yCarry;
+            xCarry = xProduct >>> 32;
+            yCarry = yProduct >>> 32;
+
+            long diff = (xProduct & Constants.UNSIGNED_INT_MASK) - (yProduct & Constants.UNSIGNED_INT_MASK) - borrow;
+            result[i] = (int)diff;
+            borrow = diff >>> 63;
+        }
+
+        return length;
+    }
+
+    /**
+     * Divides a by a single digit, writing the quotient to result
+     *
+     * @param divisor The divisor, which is treated as unsigned and must not be zero
+     * @param result The array to write to, with a length of at least aLength - it may be the same array as a
+     * @return The remainder, as an unsigned int
+     */
+    static int divideByDigit(int[] a, int aLength, int divisor, int[] result) {
+        long unsignedDivisor = divisor & Constants.UNSIGNED_INT_MASK;
+        long remainder = 0;
+
+        for (int i = aLength - 1; i >= 0; i--) {
+            long current = (remainder << 32) | (a[i] & Constants.UNSIGNED_INT_MASK);
+            result[i] = (int)Long.divideUnsigned(current, unsignedDivisor);
+            remainder = Long.remainderUnsigned(current, unsignedDivisor);
+        }
+
+        return (int)remainder;
+    }
+
+    /**
+     * Returns the remainder of a divided by a single digit, in one pass over the digits without writing a quotient
+     *
+     * @param divisor The divisor, which is treated as unsigned and must not be zero
+     * @return The remainder, as an unsigned int
+     */
+    static int remainder(int[] a, int aLength, int divisor) {
+        long remainder = 0;
+
+        if (divisor > 0) {
+            // The partial remainder is less than 2^31, so each step fits in a signed long and avoids unsigned division
+            for (int i = aLength - 1; i >= 0; i--) {
+                remainder = ((remainder << 32) | (a[i] & Constants.UNSIGNED_INT_MASK)) % divisor;
+            }
+        } else {
+            long unsignedDivisor = divisor & Constants.UNSIGNED_INT_MASK;
+
+            for (int i = aLength - 1; i >= 0; i--) {
+                remainder = Long.remainderUnsigned((remainder << 32) | (a[i] & Constants.UNSIGNED_INT_MASK), unsignedDivisor);
+            }
+        }
+
+        return (int)remainder;
+    }
+
+    /**
+     * Divides a by b using Knuth's Algorithm D (The Art of Computer Programming, Vol. 2, 4.3.1), writing the quotient and remainder
+     *
+     * Both operands are first shifted so that the highest-order bit of b is set, which keeps each estimated quotient digit
+     * within 2 of the true value.
+     *
+     * @param a The dividend, which must have at least as many digits as b
+     * @param b The divisor, whose highest-order digit (at bLength - 1) must be non-zero
+     * @param quotient The array to write the quotient to, with a length of at least aLength - bLength + 1
+     * @param remainder The array to write the remainder to, with a length of at least bLength
+     */
+    static void divide(int[] a, int aLength, int[] b, int bLength, int[] quotient, int[] remainder) {
+        if (bLength == 1) {
+            remainder[0] = DigitArithmetic.divideByDigit(a, aLength, b[0], quotient);
+            return;
+        }
+
+        int shift = Integer.numberOfLeadingZeros(b[bLength - 1]);
+
+        // The normalised divisor, and the normalised dividend with an extra high-order digit
+        int[] bn = new int[bLength + 1];
+        int[] an = new int[aLength + 1];
+        DigitArithmetic.shiftLeft(b, bLength, shift, bn);
+        DigitArithmetic.shiftLeft(a, aLength, shift, an);
+
+        long bTop = bn[bLength - 1] & Constants.UNSIGNED_INT_MASK;
+        long bNext = bn[bLength - 2] & Constants.UNSIGNED_INT_MASK;
+
+        for (int j = aLength - bLength; j >= 0; j--) {
+            // Estimate the quotient digit from the top two digits of the current remainder and the top digit of the divisor
+            long numerator = ((an[j + bLength] & Constants.UNSIGNED_INT_MASK) << 32) | (an[j + bLength - 1] & Constants.UNSIGNED_INT_MASK);
+            long qHat = Long.divideUnsigned(numerator, bTop);
+            long rHat = numerator - qHat * bTop;
+
+            // Refine the estimate using the next digit, so that it is at most 1 too large
+            while (qHat >= Constants.TWO_POW_32 || Long.compareUnsigned(qHat * bNext, (rHat << 32) | (an[j + bLength - 2] & Constants.UNSIGNED_INT_MASK)) > 0) {
+                qHat--;
+                rHat += bTop;
+
+                if (rHat >= Constants.TWO_POW_32) break;
+            }
+
+            // Multiply and subtract qHat * b from the current remainder
+            long borrow = 0;
+
+            for (int i = 0; i < bLength; i++) {
+                long product = qHat * (bn[i] & Constants.UNSIGNED_INT_MASK);
+                long diff = (an[i + j] & Constants.UNSIGNED_INT_MASK) - borrow - (product & Constants.UNSIGNED_INT_MASK);
+                an[i + j] = (int)diff;
+                borrow = (product >>> 32) - (diff >> 32);
+            }
+
+            long diff = (an[j + bLength] & Constants.UNSIGNED_INT_MASK) - borrow;
+            an[j + bLength] = (int)diff;
+
+            if (diff < 0) {
+                // The estimate was 1 too large, so add b back on
+                qHat--;
+
+                long carry = 0;
+
+                for (int i = 0; i < bLength; i++) {
+                    long sum = (an[i + j] & Constants.UNSIGNED_INT_MASK) + (bn[i] & Constants.UNSIGNED_INT_MASK) + carry;
+                    an[i + j] = (int)sum;
+                    carry = sum >>> 32;
+                }
+
+                an[j + bLength] += (int)carry;
+            }
+
+            quotient[j] = (int)qHat;
+        }
+
+        // Undo the normalisation to get the remainder
+        DigitArithmetic.shiftRight(an, bLength + 1, shift, an);
+        System.arraycopy(an, 0, remainder, 0, bLength);
+    }
+
+    /**
+     * Shifts the bits of a up by the given number of bits, writing the result to result
+     *
+     * @param bits The non-negative number of bits to shift by
+     * @param result The array to write to, with a length of at least aLength + ceil(bits / 32) - it may be the same array as a
+     * @return The number of digits written to result
+     */
+    static int shiftLeft(int[] a, int aLength, int bits, int[] result) {
+        int digitShift = bits >>> 5;
+        int bitShift = bits & 31;
+
+        if (aLength == 0) return 0;
+
+        if (bitShift == 0) {
+            for (int i = aLength - 1; i >= 0; i--) {
+                result[i + digitShift] = a[i];
+            }
+        } else {
+            // Work from the highest-order digit down, so that a and result can be the same array
+            result[aLength + digitShift] = a[aLength - 1] >>> (32 - bitShift);
+
+            for (int i = aLength - 1; i > 0; i--) {
+                result[i + digitShift] = (a[i] << bitShift) | (a[i - 1] >>> (32 - bitShift));
+            }
+
+            result[digitShift] = a[0] << bitShift;
+        }
+
+        for (int i = 0; i < digitShift; i++) {
+            result[i] = 0;
+        }
+
+        return aLength + digitShift + (bitShift == 0 ? 0 : 1);
+    }
+
+    /**
+     * Shifts the bits of a down by the given number of bits, writing the result to result and discarding the lowest bits
+     *
+     * @param bits The non-negative number of bits to shift by
+     * @param result The array to write to, with a length of at least aLength - floor(bits / 32) - it may be the same array as a
+     * @return The number of digits written to result
+     */
+    static int shiftRight(int[] a, int aLength, int bits, int[] result) {
+        int digitShift = bits >>> 5;
+        int bitShift = bits & 31;
+        int length = aLength - digitShift;
+
+        if (length <= 0) return 0;
+
+        if (bitShift == 0) {
+            for (int i = 0; i < length; i++) {
+                result[i] = a[i + digitShift];
+            }
+        } else {
+            // Work from the lowest-order digit up, so that a and result can be the same array
+            for (int i = 0; i < length - 1; i++) {
+                result[i] = (a[i + digitShift] >>> bitShift) | (a[i + digitShift + 1] << (32 - bitShift));
+            }
+
+            result[length - 1] = a[aLength - 1] >>> bitShift;
+        }
+
+        return length;
+    }
+
+    /**
+     * Multiplies a by b using the schoolbook method, writing the product to result
+     *
+     * The product is formed one column at a time (Comba's method), accumulating each column's partial products in 64-bit sums,
+     * so that every digit of the result is only written once.
+     *
+     * @param result The array to write to, with a length of at least aLength + bLength - it must not be the same array as a or b
+     * @return The number of digits written to result
+     */
+    static int multiply(int[] a, int aLength, int[] b, int bLength, int[] result) {
+        if (aLength == 0 || bLength == 0) return 0;
+
+        int resultLength = aLength + bLength;
+        long carry = 0;
+
+        for (int k = 0; k < resultLength - 1; k++) {
+            // The low and high halves of the partial products are summed separately so that the column can't overflow
+            long low = carry & Constants.UNSIGNED_INT_MASK;
+            long high = carry >>> 32;
+
+            int start = Math.max(0, k - bLength + 1);
+            int end = Math.min(k, aLength - 1);
+
+            for (int i = start; i <= end; i++) {
+                long product = (a[i] & Constants.UNSIGNED_INT_MASK) * (b[k - i] & Constants.UNSIGNED_INT_MASK);
+                low += product & Constants.UNSIGNED_INT_MASK;
+                high += product >>> 32;
+            }
+
+            result[k] = (int)low;
+            carry = high + (low >>> 32);
+        }
+
+        result[resultLength - 1] = (int)carry;
+
+        return resultLength;
+    }
+
+    /**
+     * Multiplies a by b, but only computes the lowest resultLength digits of the product (i.e. the product mod 2^(32 * resultLength))
+     *
+     * @param result The array to write to, with a length of at least resultLength - it must not be the same array as a or b
+     */
+    static void multiplyLow(int[] a, int aLength, int[] b, int bLength, int[] result, int resultLength) {
+        long carry = 0;
+
+        for (int k = 0; k < resultLength; k++) {
+            long low = carry & Constants.UNSIGNED_INT_MASK;
+            long high = carry >>> 32;
+
+            int start = Math.max(0, k - bLength + 1);
+            int end = Math.min(k, aLength - 1);
+
+            for (int i = start; i <= end; i++) {
+                long product = (a[i] & Constants.UNSIGNED_INT_MASK) * (b[k - i] & Constants.UNSIGNED_INT_MASK);
+                low += product & Constants.UNSIGNED_INT_MASK;
+                high += product >>> 32;
+            }
+
+            result[k] = (int)low;
+            carry = high + (low >>> 32);
+        }
+    }
+
+    /**
+     * Multiplies a by b, but skips every column of partial products below startColumn
+     *
+     * Digits of the result from startColumn + 1 upwards can be too small by at most 1 (as long as there are fewer than 2^32 columns),
+     * since the skipped columns can only carry at most 1 into them.
+     *
+     * @param result The array to write to, where result[i] is column startColumn + i of the product, with a length of at least aLength + bLength - startColumn
+     */
+    static void multiplyHigh(int[] a, int aLength, int[] b, int bLength, int startColumn, int[] result) {
+        int resultLength = aLength + bLength;
+        long carry = 0;
+
+        for (int k = startColumn; k < resultLength - 1; k++) {
+            long low = carry & Constants.UNSIGNED_INT_MASK;
+            long high = carry >>> 32;
+
+            int start = Math.max(0, k - bLength + 1);
+            int end = Math.min(k, aLength - 1);
+
+            for (int i = start; i <= end; i++) {
+                long product = (a[i] & Constants.UNSIGNED_INT_MASK) * (b[k - i] & Constants.UNSIGNED_INT_MASK);
+                low += product & Constants.UNSIGNED_INT_MASK;
+                high += product >>> 32;
+            }
+
+            result[k - startColumn] = (int)low;
+            carry = high + (low >>> 32);
+        }
+
+        result[resultLength - 1 - startColumn] = (int)carry;
+    }
+
+    /**
+     * Squares a, writing the result to result
+     *
+     * Like multiply, this works one column at a time, but each cross product a[i] * a[j] (i != j) is only computed once and then doubled.
+     *
+     * @param result The array to write to, with a length of at least 2 * aLength - it must not be the same array as a
+     * @return The number of digits written to result
+     */
+    static int square(int[] a, int aLength, int[] result) {
+        if (aLength == 0) return 0;
+
+        int resultLength = 2 * aLength;
+        long carry = 0;
+
+        for (int k = 0; k < resultLength - 1; k++) {
+            long crossLow = 0;
+            long crossHigh = 0;
+
+            int start = Math.max(0, k - aLength + 1);
+
+            // Only the products where i < j are computed
+            for (int i = start; i < k - i; i++) {
+                long product = (a[i] & Constants.UNSIGNED_INT_MASK) * (a[k - i] & Constants.UNSIGNED_INT_MASK);
+                crossLow += product & Constants.UNSIGNED_INT_MASK;
+                crossHigh += product >>> 32;
+            }
+
+            long low = (carry & Constants.UNSIGNED_INT_MASK) + 2 * crossLow;
+            long high = (carry >>> 32) + 2 * crossHigh;
+
+            if ((k & 1) == 0) {
+                long digit = a[k >>> 1] & Constants.UNSIGNED_INT_MASK;
+                long product = digit * digit;
+                low += product & Constants.UNSIGNED_INT_MASK;
+                high += product >>> 32;
+            }
+
+            result[k] = (int)low;
+            carry = high + (low >>> 32);
+        }
+
+        result[resultLength - 1] = (int)carry;
+
+        return resultLength;
+    }
+}
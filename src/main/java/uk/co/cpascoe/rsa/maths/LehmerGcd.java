@@ -0,0 +1,314 @@
+package uk.co.cpascoe.rsa.maths;
+
+import java.util.Arrays;
+
+/**
+ * Computes the greatest common divisor of a and b, and optionally the cofactor of a, using Lehmer's algorithm
+ * (Knuth, The Art of Computer Programming, Vol. 2, 4.5.2, Algorithm L)
+ *
+ * Runs of Euclid's algorithm are simulated on the leading 62 bits of u and v, and then applied to the full values in one pass.
+ * Every working array is allocated when the LehmerGcd is created, and values are swapped between them rather than copied.
+ */
+class LehmerGcd {
+    /**
+     * The single-precision cofactors must stay below this, so that multiplying them by a digit can't overflow
+     */
+    private static final long COFACTOR_LIMIT = 1L << 31;
+
+    private final BigInt b;
+
+    /**
+     * The current pair of values from Euclid's algorithm, where u >= v
+     */
+    private int[] u;
+    private int uLength;
+    private int[] v;
+    private int vLength;
+
+    /**
+     * The arrays to write the next values of u and v to, including the remainder of a division step
+     */
+    private int[] uNext;
+    private int[] vNext;
+
+    /**
+     * The magnitudes of the cofactors, where u = x0 * a (mod b) and v = x1 * a (mod b) - the signs of the cofactors always alternate,
+     * so only the sign of x0 is stored
+     */
+    private int[] x0;
+    private int x0Length;
+    private int[] x1;
+    private int x1Length;
+    private int[] x0Next;
+    private int[] x1Next;
+    private boolean x0Negative;
+
+    /**
+     * The quotient of a division step, and its product with x1
+     */
+    private int[] quotient;
+    private int[] product;
+
+    private final boolean computeCofactor;
+
+    /**
+     * Runs the algorithm for the given values
+     * @param computeCofactor Whether or not to keep track of the cofactor of a, which roughly doubles the amount of work
+     */
+    LehmerGcd(BigInt a, BigInt b, boolean computeCofactor) {
+        this.b = b;
+        this.computeCofactor = computeCofactor;
+
+        int n = Math.max(a.digitCount(), b.digitCount()) + 1;
+
+        this.u = Arrays.copyOf(a.exportToIntArray(), n);
+        this.uLength = DigitArithmetic.normalisedLength(this.u, n);
+        this.v = Arrays.copyOf(b.exportToIntArray(), n);
+        this.vLength = DigitArithmetic.normalisedLength(this.v, n);
+        this.uNext = new int[n];
+        this.vNext = new int[n];
+        this.quotient = new int[n];
+
+        if (computeCofactor) {
+            this.x0 = new int[n];
+            this.x0[0] = 1;
+            this.x0Length = 1;
+            this.x1 = new int[n];
+            this.x0Next = new int[n];
+            this.x1Next = new int[n];
+            this.product = new int[2 * n];
+        }
+
+        if (LehmerGcd.compare(this.u, this.uLength, this.v, this.vLength) < 0) {
+            this.swap();
+        }
+
+        while (this.vLength > 0) {
+            this.step();
+        }
+    }
+
+    /**
+     * Returns the greatest common divisor
+     */
+    BigInt gcd() {
+        return new BigInt(Arrays.copyOf(this.u, this.uLength));
+    }
+
+    /**
+     * Returns the cofactor x of a, where a * x = gcd (mod b) and 1 <= x <= b / gcd
+     */
+    BigInt cofactor() {
+        BigInt bOverGcd = this.b.quotient(this.gcd());
+        BigInt x = this.signedCofactor().mod(bOverGcd);
+
+        return x.equals(0) ? bOverGcd : x;
+    }
+
+    /**
+     * Returns the cofactor x of a as it stands at the end of the algorithm, where a * x = gcd (mod b) and |x| <= b / gcd
+     */
+    SignedBigInt signedCofactor() {
+        return new SignedBigInt(new BigInt(Arrays.copyOf(this.x0, this.x0Length)), this.x0Negative);
+    }
+
+    /**
+     * Advances Euclid's algorithm by as many steps as the leading bits of u and v allow, or by one full division step
+     */
+    private void step() {
+        int shift = Math.max(0, LehmerGcd.bitCount(this.u, this.uLength) - 62);
+        boolean exact = shift == 0;
+
+        long uHat = LehmerGcd.leadingBits(this.u, this.uLength, shift);
+        long vHat = LehmerGcd.leadingBits(this.v, this.vLength, shift);
+
+        // The single-precision cofactors, where the next u = A * u + B * v and the next v = C * u + D * v
+        long A = 1;
+        long B = 0;
+        long C = 0;
+        long D = 1;
+        boolean odd = false;
+
+        while (true) {
+            long q;
+
+            if (exact) {
+                if (vHat == 0) break;
+                q = uHat / vHat;
+            } else {
+                // The true quotient lies between these two estimates, so it is only known when they agree
+                if (vHat + C <= 0 || vHat + D <= 0) break;
+                q = (uHat + A) / (vHat + C);
+                if (q != (uHat + B) / (vHat + D)) break;
+            }
+
+            if (q >= LehmerGcd.COFACTOR_LIMIT) break;
+
+            long nextC = A - q * C;
+            long nextD = B - q * D;
+
+            if (Math.abs(nextC) >= LehmerGcd.COFACTOR_LIMIT || Math.abs(nextD) >= LehmerGcd.COFACTOR_LIMIT) break;
+
+            A = C;
+            B = D;
+            C = nextC;
+            D = nextD;
+
+            long t = uHat - q * vHat;
+            uHat = vHat;
+            vHat = t;
+
+            odd = !odd;
+        }
+
+        if (B == 0) {
+            this.divisionStep();
+        } else {
+            this.combine(Math.abs(A), Math.abs(B), Math.abs(C), Math.abs(D), odd);
+        }
+    }
+
+    /**
+     * Applies the single-precision cofactors to the full values - A and D have the same sign, which is negative after an odd number of steps,
+     * and B and C have the opposite sign
+     */
+    private void combine(long a, long b, long c, long d, boolean odd) {
+        if (odd) {
+            DigitArithmetic.multiplySubtract(this.v, b, this.u, a, this.uLength, this.uNext);
+            DigitArithmetic.multiplySubtract(this.u, c, this.v, d, this.uLength, this.vNext);
+        } else {
+            DigitArithmetic.multiplySubtract(this.u, a, this.v, b, this.uLength, this.uNext);
+            DigitArithmetic.multiplySubtract(this.v, d, this.u, c, this.uLength, this.vNext);
+        }
+
+        int[] tmp = this.u;
+        this.u = this.uNext;
+        this.uNext = tmp;
+        this.uLength = DigitArithmetic.normalisedLength(this.u, this.uLength);
+
+        tmp = this.v;
+        this.v = this.vNext;
+        this.vNext = tmp;
+        this.vLength = DigitArithmetic.normalisedLength(this.v, this.uLength);
+
+        if (!this.computeCofactor) return;
+
+        // x0 and x1 have opposite signs, and so do A and B (and C and D), so both terms of each new cofactor have the same sign
+        int length = Math.max(this.x0Length, this.x1Length);
+
+        DigitArithmetic.multiplyAdd(this.x0, a, this.x1, b, length, this.x0Next);
+        DigitArithmetic.multiplyAdd(this.x0, c, this.x1, d, length, this.x1Next);
+
+        tmp = this.x0;
+        this.x0 = this.x0Next;
+        this.x0Next = tmp;
+        this.x0Length = DigitArithmetic.normalisedLength(this.x0, length + 1);
+
+        tmp = this.x1;
+        this.x1 = this.x1Next;
+        this.x1Next = tmp;
+        this.x1Length = DigitArithmetic.normalisedLength(this.x1, length + 1);
+
+        if (odd) this.x0Negative = !this.x0Negative;
+    }
+
+    /**
+     * Performs one step of Euclid's algorithm with a full division, for when the quotient is too large for single precision
+     */
+    private void divisionStep() {
+        DigitArithmetic.divide(this.u, this.uLength, this.v, this.vLength, this.quotient, this.uNext);
+
+        if (this.computeCofactor) {
+            // x1 = x0 + q * x1, where the old x1 becomes the new x0
+            int quotientLength = DigitArithmetic.normalisedLength(this.quotient, this.uLength - this.vLength + 1);
+            int productLength = 0;
+
+            if (this.x1Length > 0) {
+                DigitArithmetic.multiply(this.quotient, quotientLength, this.x1, this.x1Length, this.product);
+                productLength = DigitArithmetic.normalisedLength(this.product, quotientLength + this.x1Length);
+            }
+
+            int length = DigitArithmetic.add(this.product, productLength, this.x0, this.x0Length, this.x0Next);
+
+            int[] tmp = this.x0;
+            this.x0 = this.x1;
+            this.x0Length = this.x1Length;
+            this.x1 = this.x0Next;
+            this.x1Length = DigitArithmetic.normalisedLength(this.x1, length);
+            this.x0Next = tmp;
+            this.x0Negative = !this.x0Negative;
+        }
+
+        // u = v, and v = u mod v
+        int[] tmp = this.u;
+        this.u = this.v;
+        this.uLength = this.vLength;
+        this.v = this.uNext;
+        this.vLength = DigitArithmetic.normalisedLength(this.v, this.uLength);
+        this.uNext = tmp;
+    }
+
+    /**
+     * Swaps u and v, which is the step of Euclid's algorithm when u < v
+     */
+    private void swap() {
+        int[] tmp = this.u;
+        this.u = this.v;
+        this.v = tmp;
+
+        int tmpLength = this.uLength;
+        this.uLength = this.vLength;
+        this.vLength = tmpLength;
+
+        if (this.computeCofactor) {
+            tmp = this.x0;
+            this.x0 = this.x1;
+            this.x1 = tmp;
+
+            tmpLength = this.x0Length;
+            this.x0Length = this.x1Length;
+            this.x1Length = tmpLength;
+
+            this.x0Negative = !this.x0Negative;
+        }
+    }
+
+    /**
+     * Returns the number of bits in the given digits
+     */
+    private static int bitCount(int[] x, int length) {
+        return length == 0 ? 0 : (32 * length) - Integer.numberOfLeadingZeros(x[length - 1]);
+    }
+
+    /**
+     * Returns x shifted down by the given number of bits, which must be less than 2^63
+     */
+    private static long leadingBits(int[] x, int length, int shift) {
+        int index = shift / 32;
+        int offset = shift % 32;
+
+        long value = (LehmerGcd.digitAt(x, length, index) & Constants.UNSIGNED_INT_MASK) | ((long)LehmerGcd.digitAt(x, length, index + 1) << 32);
+        value >>>= offset;
+
+        if (offset != 0) {
+            value |= (LehmerGcd.digitAt(x, length, index + 2) & Constants.UNSIGNED_INT_MASK) << (64 - offset);
+        }
+
+        return value;
+    }
+
+    private static int digitAt(int[] x, int length, int index) {
+        return index < length ? x[index] : 0;
+    }
+
+    private static int compare(int[] x, int xLength, int[] y, int yLength) {
+        if (xLength != yLength) return xLength - yLength;
+
+        for (int i = xLength - 1; i >= 0; i--) {
+            int diff = MathUtils.unsignedIntCompare(x[i], y[i]);
+            if (diff != 0) return diff;
+        }
+
+        return 0;
+    }
+}
@@ -0,0 +1,148 @@
+package uk.co.cpascoe.rsa.maths;
+
+/**
+ * Multiplication kernels that work on base 2^64 digits, which need a quarter of the digit multiplications of the base 2^32 kernels in DigitArithmetic
+ *
+ * BigInt keeps its base 2^32 representation, so the operands are packed into pairs of digits on the way in and unpacked again on the way out.
+ */
+abstract class LongDigitArithmetic {
+    /**
+     * Packs pairs of base 2^32 digits into base 2^64 digits
+     *
+     * @return A new array of length ceil(length / 2)
+     */
+    static long[] pack(int[] a, int length) {
+        long[] result = new long[(length + 1) / 2];
+
+        for (int i = 0; i < length / 2; i++) {
+            result[i] = (a[2 * i] & Constants.UNSIGNED_INT_MASK) | ((long)a[2 * i + 1] << 32);
+        }
+
+        if ((length & 1) == 1) {
+            result[length / 2] = a[length - 1] & Constants.UNSIGNED_INT_MASK;
+        }
+
+        return result;
+    }
+
+    /**
+     * Unpacks base 2^64 digits into base 2^32 digits
+     *
+     * @param result The array to write to - only the first resultLength digits are written
+     */
+    static void unpack(long[] a, int[] result, int resultLength) {
+        for (int i = 0; i < resultLength; i++) {
+            long digit = a[i >>> 1];
+            result[i] = (i & 1) == 0 ? (int)digit : (int)(digit >>> 32);
+        }
+    }
+
+    /**
+     * Returns the high 64 bits of the unsigned 128-bit product of x and y
+     */
+    static long unsignedMultiplyHigh(long x, long y) {
+        // Math.multiplyHigh treats its arguments as signed, which is out by y * 2^64 when x is negative (and vice versa)
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+
+    /**
+     * Multiplies a and b using the Comba method (product scanning), writing the product to result
+     *
+     * Each column is summed into a three-digit accumulator, so that carries only need to be handled once per column.
+     *
+     * @param result The array to write to, with a length of at least aLength + bLength - it must not be the same array as a or b
+     */
+    static void multiply(long[] a, int aLength, long[] b, int bLength, long[] result) {
+        long c0 = 0;
+        long c1 = 0;
+        long c2 = 0;
+
+        for (int k = 0; k < aLength + bLength - 1; k++) {
+            int start = Math.max(0, k - bLength + 1);
+            int end = Math.min(k, aLength - 1);
+
+            for (int i = start; i <= end; i++) {
+                long x = a[i];
+                long y = b[k - i];
+
+                long low = x * y;
+                long high = LongDigitArithmetic.unsignedMultiplyHigh(x, y);
+
+                c0 += low;
+                // The high half is at most 2^64 - 2, so adding the carry to it can't overflow
+                high += Long.compareUnsigned(c0, low) < 0 ? 1 : 0;
+                c1 += high;
+                c2 += Long.compareUnsigned(c1, high) < 0 ? 1 : 0;
+            }
+
+            result[k] = c0;
+            c0 = c1;
+            c1 = c2;
+            c2 = 0;
+        }
+
+        result[aLength + bLength - 1] = c0;
+    }
+
+    /**
+     * Squares a using the Comba method, computing each cross product once and doubling the column sum
+     *
+     * @param result The array to write to, with a length of at least 2 * aLength - it must not be the same array as a
+     */
+    static void square(long[] a, int aLength, long[] result) {
+        long c0 = 0;
+        long c1 = 0;
+        long c2 = 0;
+
+        for (int k = 0; k < 2 * aLength - 1; k++) {
+            long cross0 = 0;
+            long cross1 = 0;
+            long cross2 = 0;
+
+            // Only the products where i < j are computed
+            for (int i = Math.max(0, k - aLength + 1); i < k - i; i++) {
+                long x = a[i];
+                long y = a[k - i];
+
+                long low = x * y;
+                long high = LongDigitArithmetic.unsignedMultiplyHigh(x, y);
+
+                cross0 += low;
+                high += Long.compareUnsigned(cross0, low) < 0 ? 1 : 0;
+                cross1 += high;
+                cross2 += Long.compareUnsigned(cross1, high) < 0 ? 1 : 0;
+            }
+
+            // Double the cross products and add them to the accumulator
+            cross2 = (cross2 << 1) | (cross1 >>> 63);
+            cross1 = (cross1 << 1) | (cross0 >>> 63);
+            cross0 <<= 1;
+
+            c0 += cross0;
+            long carry = Long.compareUnsigned(c0, cross0) < 0 ? 1 : 0;
+            c1 += carry;
+            c2 += Long.compareUnsigned(c1, carry) < 0 ? 1 : 0;
+            c1 += cross1;
+            c2 += (Long.compareUnsigned(c1, cross1) < 0 ? 1 : 0) + cross2;
+
+            if ((k & 1) == 0) {
+                long x = a[k >>> 1];
+
+                long low = x * x;
+                long high = LongDigitArithmetic.unsignedMultiplyHigh(x, x);
+
+                c0 += low;
+                high += Long.compareUnsigned(c0, low) < 0 ? 1 : 0;
+                c1 += high;
+                c2 += Long.compareUnsigned(c1, high) < 0 ? 1 : 0;
+            }
+
+            result[k] = c0;
+            c0 = c1;
+            c1 = c2;
+            c2 = 0;
+        }
+
+        result[2 * aLength - 1] = c0;
+    }
+}
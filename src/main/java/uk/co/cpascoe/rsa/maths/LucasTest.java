@@ -0,0 +1,121 @@
+package uk.co.cpascoe.rsa.maths;
+
+/**
+ * The strong Lucas probable prime test, with the parameters chosen by Selfridge's method A, which together with a base 2
+ * strong probable prime test makes up the Baillie-PSW test
+ *
+ * The sequence values are kept in Montgomery form. The form is linear, so adding, halving and multiplying by the small
+ * parameters D and Q work on it unchanged, and only the products of two sequence values need Montgomery multiplication.
+ */
+abstract class LucasTest {
+    /**
+     * Returns whether n is a strong Lucas probable prime for P = 1 and the first D in 5, -7, 9, -11, ... with (D/n) = -1
+     * @param n An odd value greater than 1
+     * @param context The MontgomeryContext for n
+     */
+    static boolean isStrongLucasProbablePrime(BigInt n, MontgomeryContext context) {
+        int d = 5;
+        boolean dNegative = false;
+
+        while (true) {
+            // Squares have no D with (D/n) = -1, so the search would never end; most non-squares have stopped by now
+            if (d == 9 && LucasTest.isPerfectSquare(n)) return false;
+
+            int jacobi = new BigInt(d).jacobi(n);
+
+            // (-1/n) is -1 when n = 3 (mod 4)
+            if (dNegative && (n.getDigit(0) & 3) == 3) jacobi = -jacobi;
+
+            if (jacobi == -1) break;
+
+            // n shares a factor with D, which only leaves n prime if it is D
+            if (jacobi == 0) return n.equals(d);
+
+            d += 2;
+            dNegative = !dNegative;
+        }
+
+        // Q = (1 - D) / 4, which is negative when D is positive
+        int q = dNegative ? (d + 1) / 4 : (d - 1) / 4;
+        boolean qNegative = !dNegative;
+
+        // n + 1 = 2^s * k
+        BigInt nPlusOne = n.add(1);
+        int s = nPlusOne.getLowestSetBit();
+        BigInt k = nPlusOne.shiftBits(-s);
+
+        // U_1 = 1, V_1 = P = 1 and Q^1 = Q
+        BigInt one = context.toMontgomery(new BigInt(1));
+        BigInt u = one;
+        BigInt v = one;
+        BigInt qk = LucasTest.multiplySmall(one, q, qNegative, n);
+
+        for (int i = k.bitCount() - 2; i >= 0; i--) {
+            // U_2j = U_j * V_j, V_2j = V_j^2 - 2Q^j
+            u = context.multiply(u, v);
+            v = LucasTest.subtract(context.multiply(v, v), LucasTest.add(qk, qk, n), n);
+            qk = context.multiply(qk, qk);
+
+            if (k.testBit(i)) {
+                // U_(j+1) = (P * U_j + V_j) / 2, V_(j+1) = (D * U_j + P * V_j) / 2
+                BigInt nextU = LucasTest.half(LucasTest.add(u, v, n), n);
+                v = LucasTest.half(LucasTest.add(LucasTest.multiplySmall(u, d, dNegative, n), v, n), n);
+                u = nextU;
+                qk = LucasTest.multiplySmall(qk, q, qNegative, n);
+            }
+        }
+
+        if (u.equals(0) || v.equals(0)) return true;
+
+        for (int r = 1; r < s; r++) {
+            // V_(2^r * k) = V_(2^(r-1) * k)^2 - 2Q^(2^(r-1) * k)
+            v = LucasTest.subtract(context.multiply(v, v), LucasTest.add(qk, qk, n), n);
+
+            if (v.equals(0)) return true;
+
+            qk = context.multiply(qk, qk);
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns whether n is the square of an integer, using Newton's method for the integer square root
+     */
+    static boolean isPerfectSquare(BigInt n) {
+        // Start from a power of 2 that is at least the square root, from which the iterations decrease to it
+        BigInt x = new BigInt(1).shiftBits((n.bitCount() + 1) / 2);
+
+        while (true) {
+            BigInt next = x.add(n.quotient(x)).shiftBits(-1);
+            if (next.greaterThanOrEqual(x)) break;
+            x = next;
+        }
+
+        return x.square().equals(n);
+    }
+
+    /**
+     * Returns (x * value) mod n, or (-x * value) mod n if negative is true, for x less than n
+     */
+    private static BigInt multiplySmall(BigInt x, int value, boolean negative, BigInt n) {
+        BigInt product = x.multiply(new BigInt(value)).mod(n);
+        return negative && !product.equals(0) ? n.subtract(product) : product;
+    }
+
+    private static BigInt add(BigInt a, BigInt b, BigInt n) {
+        BigInt sum = a.add(b);
+        return sum.greaterThanOrEqual(n) ? sum.subtract(n) : sum;
+    }
+
+    private static BigInt subtract(BigInt a, BigInt b, BigInt n) {
+        return a.greaterThanOrEqual(b) ? a.subtract(b) : a.add(n).subtract(b);
+    }
+
+    /**
+     * Returns (x / 2) mod n, for n odd and x less than n
+     */
+    private static BigInt half(BigInt x, BigInt n) {
+        return x.getBitAt(0) == 0 ? x.shiftBits(-1) : x.add(n).shiftBits(-1);
+    }
+}
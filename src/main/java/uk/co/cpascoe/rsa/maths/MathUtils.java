@@ -4,6 +4,22 @@ import java.util.Random;
 import java.security.SecureRandom;
 
 public abstract class MathUtils {
+    public static class ExtendedGcdResult {
+        private final BigInt gcd;
+        private final BigInt x;
+        private final BigInt y;
+
+        public ExtendedGcdResult(BigInt gcd, BigInt x, BigInt y) {
+            this.gcd = gcd;
+            this.x = x;
+            this.y = y;
+        }
+
+        public BigInt gcd() { return this.gcd; }
+        public BigInt x() { return this.x; }
+        public BigInt y() { return this.y; }
+    }
+
     /**
      * Returns the value of Ceiling(x / divisor)
      */
@@ -95,27 +111,30 @@ public abstract class MathUtils {
         if (a.equals(0)) return b;
         if (b.equals(0)) return a;
 
-        if (a.getBitAt(0) == 0) {
-            // a is even
+        return new LehmerGcd(a, b, false).gcd();
+    }
 
-            if (b.getBitAt(0) == 0) {
-                return MathUtils.gcd(a.shiftBits(-1), b.shiftBits(-1)).shiftBits(1);
-            } else {
-                return MathUtils.gcd(a.shiftBits(-1), b);
-            }
-        } else {
-            // a is odd
-
-            if (b.getBitAt(0) == 0) {
-                return MathUtils.gcd(a, b.shiftBits(-1));
-            } else {
-                if (a.greaterThan(b)) {
-                    return MathUtils.gcd(a.subtract(b).shiftBits(-1), b);
-                } else {
-                    return MathUtils.gcd(a, b.subtract(a).shiftBits(-1));
-                }
-            }
-        }
+    /**
+     * Computes the greatest common divisor of a and b, along with the Bezout coefficients x and y,
+     * where a * x - b * y = gcd and both coefficients are non-negative
+     *
+     * @param a A non-zero value
+     * @return The gcd, x and y, where 1 <= x <= b / gcd (or x = 1 and y = 0 if b is zero)
+     * @throws Error If a is zero, since then no non-negative coefficients exist
+     */
+    public static ExtendedGcdResult extendedGcd(BigInt a, BigInt b) {
+        if (a.equals(0)) throw new Error("a must not be zero");
+        if (b.equals(0)) return new ExtendedGcdResult(a, new BigInt(1), new BigInt(0));
+
+        LehmerGcd lehmer = new LehmerGcd(a, b, true);
+
+        BigInt gcd = lehmer.gcd();
+        BigInt x = lehmer.cofactor();
+
+        // a * x = gcd (mod b), and x >= 1 means a * x >= gcd, so y is a non-negative integer
+        BigInt y = a.multiply(x).subtract(gcd).quotient(b);
+
+        return new ExtendedGcdResult(gcd, x, y);
     }
 
     /**
@@ -152,26 +171,62 @@ public abstract class MathUtils {
         return x;
     }
 
+    /**
+     * Returns the number of Miller-Rabin rounds, following FIPS 186-4 Tables C.2 and C.3, for a candidate of the given number of bits,
+     * for use with BigInt.isProbablePrime(int)
+     */
+    public static int millerRabinRounds(int bits) {
+        int i = 0;
+        while (bits < Constants.MILLER_RABIN_ROUNDS_MIN_BITS[i]) i++;
+        return Constants.MILLER_RABIN_ROUNDS[i];
+    }
+
     /**
      * Generates a random number which probably prime
      * @param bits The number of bits the number will have (i.e. the number will not be less than 2^bits, and not greater than 2^(bits + 1) - 1)
      */
     public static BigInt generateProbablePrime(int bits) {
         Random r = new SecureRandom();
-        BigInt randomNumber;
 
+        // Setting the top bit makes sure that it has the correct number of bits,
+        // and setting the bottom bit makes it odd; no prime above 2 is even
+        BigInt topAndBottomBits = new BigInt(1).setBit(bits - 1);
+        BigInt minimum = new BigInt(1).shiftBits(bits - 1);
+
+        BigInt prime;
+
+        // Rather than drawing a new random number for every candidate, the odd numbers following one random start are sieved
+        // against the small primes, and only the ones that survive are tested with Baillie-PSW
         do {
-            randomNumber = MathUtils.randomBigInt(bits, r);
+            PrimeSieve sieve = new PrimeSieve(MathUtils.randomBigInt(bits, r).or(topAndBottomBits), Constants.SIEVE_WINDOW, minimum);
+            prime = MathUtils.searchSieve(sieve, bits);
+        } while (prime == null);
+
+        return prime;
+    }
+
+    /**
+     * Returns the first candidate from the sieve that is probably prime, moving the sieve through as many windows as necessary
+     * @return The prime, or null if the candidates grew to more than the given number of bits before one was found
+     */
+    private static BigInt searchSieve(PrimeSieve sieve, int bits) {
+        while (true) {
+            for (int i = 0; i < sieve.size(); i++) {
+                if (!sieve.survives(i)) continue;
 
-            // Make sure that it has the correct number of bits
-            randomNumber.setBitAt(1, bits - 1);
+                BigInt candidate = sieve.candidate(i);
 
-            // Make sure that it is odd; no prime above 2 is even
-            randomNumber.setBitAt(1, 0);
-        } while (!randomNumber.isProbablePrime());
+                if (candidate.bitCount() > bits) return null;
 
-        return randomNumber;
+                // Only candidates of more than 32 bits are sure to have been sieved by every small prime,
+                // so tiny candidates are given the full test
+                boolean probablePrime = bits > 32 ? candidate.passesBailliePsw() : candidate.isProbablePrime();
 
+                if (probablePrime) return candidate;
+            }
+
+            sieve.next();
+        }
     }
 
 }
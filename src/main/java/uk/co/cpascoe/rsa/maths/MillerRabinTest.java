@@ -0,0 +1,65 @@
+package uk.co.cpascoe.rsa.maths;
+
+import java.util.Arrays;
+
+/**
+ * Rounds of the Miller-Rabin test for one odd candidate n, which share its MontgomeryContext and precomputed values
+ *
+ * Each round stays in Montgomery form from the exponentiation to the last squaring, and compares against the Montgomery
+ * forms of 1 and n - 1 rather than converting back. A MillerRabinTest is never modified after it is created, so rounds
+ * can run on several threads at once.
+ */
+class MillerRabinTest {
+    private final BigInt n;
+    private final MontgomeryContext context;
+
+    /**
+     * The odd part d and the power of two s, where n - 1 = 2^s * d
+     */
+    private final BigInt d;
+    private final int s;
+
+    /**
+     * The Montgomery forms of 1 and n - 1
+     */
+    private final int[] one;
+    private final int[] minusOne;
+
+    /**
+     * Prepares the test for the given candidate
+     * @param n The candidate, which must be odd and greater than 3
+     * @param context The MontgomeryContext for n
+     */
+    MillerRabinTest(BigInt n, MontgomeryContext context) {
+        this.n = n;
+        this.context = context;
+
+        BigInt nMinusOne = n.subtract(1);
+        this.s = nMinusOne.getLowestSetBit();
+        this.d = nMinusOne.shiftBits(-this.s);
+
+        int[] workspace = context.createWorkspace();
+        this.one = context.toMontgomeryDigits(new BigInt(1), workspace);
+        this.minusOne = context.toMontgomeryDigits(nMinusOne, workspace);
+    }
+
+    /**
+     * Runs one round, returning whether the candidate is a strong probable prime to the given base
+     * @param base A base from 2 to n - 2
+     */
+    boolean isStrongProbablePrime(BigInt base) {
+        int[] workspace = this.context.createWorkspace();
+        int[] x = this.context.powModMontgomery(base, this.d, workspace);
+
+        if (Arrays.equals(x, this.one) || Arrays.equals(x, this.minusOne)) return true;
+
+        for (int j = 1; j < this.s; j++) {
+            this.context.multiply(x, x, x, workspace);
+
+            if (Arrays.equals(x, this.one)) return false;
+            if (Arrays.equals(x, this.minusOne)) return true;
+        }
+
+        return false;
+    }
+}
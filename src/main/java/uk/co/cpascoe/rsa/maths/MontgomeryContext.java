@@ -0,0 +1,252 @@
+package uk.co.cpascoe.rsa.maths;
+
+import java.util.Arrays;
+
+/**
+ * The precomputed values needed for Montgomery multiplication modulo a fixed odd modulus m,
+ * so that they can be reused for any number of operations with that modulus
+ *
+ * The Montgomery form of x is (x * R) mod m, where R = 2^(32 * n) and n is the number of digits in m.
+ * A MontgomeryContext is never modified after it is created, so one instance can be shared between threads.
+ */
+public class MontgomeryContext {
+    /**
+     * Sliding-window exponentiation with Montgomery multiplication, which keeps every value in Montgomery form
+     */
+    private class Exponentiation extends SlidingWindowExponentiation {
+        private final int[] workspace;
+
+        private Exponentiation(int[] workspace) {
+            this.workspace = workspace;
+        }
+
+        @Override
+        protected void multiply(int[] a, int[] b, int[] result) {
+            MontgomeryContext.this.multiply(a, b, result, this.workspace);
+        }
+    }
+
+    private final BigInt modulus;
+
+    /**
+     * The digits of the modulus
+     */
+    private final int[] m;
+
+    /**
+     * The number of digits in the modulus
+     */
+    private final int n;
+
+    /**
+     * The value of -m^-1 mod 2^32, which is all that word-by-word reduction needs
+     */
+    private final int mInverse;
+
+    /**
+     * The value of R^2 mod m, used to convert values into Montgomery form
+     */
+    private final int[] rSquared;
+
+    /**
+     * The Montgomery form of 1, i.e. R mod m
+     */
+    private final int[] one;
+
+    /**
+     * Creates a new MontgomeryContext for the given modulus
+     * @param modulus The modulus, which must be odd
+     * @throws Error If the modulus is not odd
+     */
+    public MontgomeryContext(BigInt modulus) {
+        if (modulus.getBitAt(0) != 1) throw new Error("Modulus must be odd for Montgomery multiplication");
+
+        this.modulus = modulus;
+        this.m = modulus.exportToIntArray();
+        this.n = this.m.length;
+
+        this.mInverse = -DigitArithmetic.inverse(this.m[0]);
+
+        this.rSquared = this.pad(new BigInt(1).shiftBits(64 * this.n).mod(modulus));
+        this.one = this.pad(new BigInt(1).shiftBits(32 * this.n).mod(modulus));
+    }
+
+    /**
+     * Returns the modulus
+     */
+    public BigInt getModulus() {
+        return this.modulus;
+    }
+
+    /**
+     * Returns the Montgomery form of x, i.e. (x * R) mod m
+     */
+    public BigInt toMontgomery(BigInt x) {
+        return BigInt.wrap(this.toMontgomeryDigits(x, this.createWorkspace()));
+    }
+
+    /**
+     * Returns the Montgomery form of x as an array of n digits
+     */
+    int[] toMontgomeryDigits(BigInt x, int[] workspace) {
+        int[] result = new int[this.n];
+        this.multiply(this.reduce(x), this.rSquared, result, workspace);
+        return result;
+    }
+
+    /**
+     * Returns the value represented by the given Montgomery form, i.e. (x * R^-1) mod m
+     */
+    public BigInt fromMontgomery(BigInt x) {
+        int[] unit = new int[this.n];
+        unit[0] = 1;
+
+        int[] result = new int[this.n];
+        this.multiply(this.reduce(x), unit, result, this.createWorkspace());
+        return BigInt.wrap(result);
+    }
+
+    /**
+     * Returns the Montgomery product of two values that are already in Montgomery form, i.e. (a * b * R^-1) mod m
+     */
+    public BigInt multiply(BigInt a, BigInt b) {
+        int[] result = new int[this.n];
+        this.multiply(this.reduce(a), this.reduce(b), result, this.createWorkspace());
+        return BigInt.wrap(result);
+    }
+
+    /**
+     * Returns the value of (a * b) mod m, for values that are not in Montgomery form
+     */
+    public BigInt mulMod(BigInt a, BigInt b) {
+        int[] workspace = this.createWorkspace();
+        int[] product = new int[this.n];
+        int[] result = new int[this.n];
+
+        // (a * b * R^-1) * R^2 * R^-1 = a * b
+        this.multiply(this.reduce(a), this.reduce(b), product, workspace);
+        this.multiply(product, this.rSquared, result, workspace);
+
+        return BigInt.wrap(result);
+    }
+
+    /**
+     * Computes the value of base raised to the power of the given exponent, modulo m
+     * @return The value of (base ^ exponent) mod m
+     */
+    public BigInt powMod(BigInt base, BigInt exponent) {
+        int[] workspace = this.createWorkspace();
+        int[] resultR = this.powModMontgomery(base, exponent, workspace);
+
+        int[] unit = new int[this.n];
+        unit[0] = 1;
+
+        int[] result = new int[this.n];
+        this.multiply(resultR, unit, result, workspace);
+
+        return BigInt.wrap(result);
+    }
+
+    /**
+     * Computes base ^ exponent mod m, leaving the result in Montgomery form for further Montgomery multiplications
+     * @return The n digits of (base ^ exponent * R) mod m
+     */
+    int[] powModMontgomery(BigInt base, BigInt exponent, int[] workspace) {
+        int[] baseR = new int[this.n];
+        this.multiply(this.reduce(base), this.rSquared, baseR, workspace);
+
+        return new Exponentiation(workspace).pow(baseR, exponent, this.one);
+    }
+
+    /**
+     * Returns a workspace array for use with multiply
+     */
+    int[] createWorkspace() {
+        return new int[this.n + 2];
+    }
+
+    /**
+     * Computes the Montgomery product (a * b * R^-1) mod m using the Coarsely Integrated Operand Scanning (CIOS) method,
+     * which interleaves each row of the multiplication with one word of the reduction
+     *
+     * @param a An array of n digits, representing a value less than m
+     * @param b An array of n digits, representing a value less than m
+     * @param result The array of n digits to write to - it may be the same array as a or b
+     * @param workspace An array of n + 2 digits from createWorkspace
+     */
+    void multiply(int[] a, int[] b, int[] result, int[] workspace) {
+        int n = this.n;
+        int[] m = this.m;
+        int[] t = workspace;
+
+        Arrays.fill(t, 0);
+
+        for (int i = 0; i < n; i++) {
+            long bDigit = b[i] & Constants.UNSIGNED_INT_MASK;
+            long carry = 0;
+
+            // t += a * b[i]
+            for (int j = 0; j < n; j++) {
+                long sum = (t[j] & Constants.UNSIGNED_INT_MASK) + (a[j] & Constants.UNSIGNED_INT_MASK) * bDigit + carry;
+                t[j] = (int)sum;
+                carry = sum >>> 32;
+            }
+
+            long sum = (t[n] & Constants.UNSIGNED_INT_MASK) + carry;
+            t[n] = (int)sum;
+            t[n + 1] = (int)(sum >>> 32);
+
+            // t = (t + q * m) / 2^32, where q is chosen so that the lowest digit becomes zero
+            long q = (t[0] * this.mInverse) & Constants.UNSIGNED_INT_MASK;
+
+            carry = ((t[0] & Constants.UNSIGNED_INT_MASK) + q * (m[0] & Constants.UNSIGNED_INT_MASK)) >>> 32;
+
+            for (int j = 1; j < n; j++) {
+                sum = (t[j] & Constants.UNSIGNED_INT_MASK) + q * (m[j] & Constants.UNSIGNED_INT_MASK) + carry;
+                t[j - 1] = (int)sum;
+                carry = sum >>> 32;
+            }
+
+            sum = (t[n] & Constants.UNSIGNED_INT_MASK) + carry;
+            t[n - 1] = (int)sum;
+            t[n] = t[n + 1] + (int)(sum >>> 32);
+        }
+
+        // t < 2m, so at most one subtraction is needed
+        if (t[n] != 0 || this.compareToModulus(t) >= 0) {
+            DigitArithmetic.subtract(t, n, m, n, result);
+        } else {
+            System.arraycopy(t, 0, result, 0, n);
+        }
+    }
+
+    /**
+     * Compares the lowest n digits of the given array with the modulus
+     */
+    private int compareToModulus(int[] t) {
+        for (int i = this.n - 1; i >= 0; i--) {
+            int diff = MathUtils.unsignedIntCompare(t[i], this.m[i]);
+            if (diff != 0) return diff;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Returns x mod m as an array of n digits
+     */
+    private int[] reduce(BigInt x) {
+        if (x.digitCount() > this.n || x.greaterThanOrEqual(this.modulus)) {
+            x = x.mod(this.modulus);
+        }
+
+        return this.pad(x);
+    }
+
+    /**
+     * Returns the digits of x, which must be less than m, as an array of n digits
+     */
+    private int[] pad(BigInt x) {
+        return Arrays.copyOf(x.exportToIntArray(), this.n);
+    }
+}
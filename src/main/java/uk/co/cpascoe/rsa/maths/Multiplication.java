@@ -0,0 +1,404 @@
+package uk.co.cpascoe.rsa.maths;
+
+import java.util.Arrays;
+
+/**
+ * Multiplication and squaring of little-endian base 2^32 digit arrays, choosing between the schoolbook method,
+ * Karatsuba, Toom-Cook 3-way and number-theoretic transforms based on the size of the operands
+ *
+ * The thresholds for each algorithm are defined in Constants.
+ */
+abstract class Multiplication {
+    /**
+     * A signed intermediate value, used during Toom-Cook interpolation
+     */
+    static class SignedDigits {
+        private final int[] digits;
+        private final boolean negative;
+
+        private SignedDigits(int[] digits, boolean negative) {
+            this.digits = digits;
+            // Zero is never negative
+            this.negative = negative && digits.length > 0;
+        }
+
+        private static SignedDigits of(int[] digits) {
+            return new SignedDigits(Multiplication.trim(digits, digits.length), false);
+        }
+
+        private SignedDigits add(SignedDigits other) {
+            if (this.negative == other.negative) {
+                return new SignedDigits(Multiplication.add(this.digits, other.digits), this.negative);
+            }
+
+            int comparison = Multiplication.compare(this.digits, other.digits);
+
+            if (comparison >= 0) {
+                return new SignedDigits(Multiplication.subtract(this.digits, other.digits), this.negative);
+            } else {
+                return new SignedDigits(Multiplication.subtract(other.digits, this.digits), other.negative);
+            }
+        }
+
+        private SignedDigits subtract(SignedDigits other) {
+            return this.add(new SignedDigits(other.digits, !other.negative));
+        }
+
+        private SignedDigits multiply(SignedDigits other) {
+            return this.withProduct(other, Multiplication.multiply(this.digits, this.digits.length, other.digits, other.digits.length));
+        }
+
+        private SignedDigits square() {
+            return this.withProduct(this, Multiplication.square(this.digits, this.digits.length));
+        }
+
+        /**
+         * Returns the product of this and other, given the product of their magnitudes (which may have been computed elsewhere)
+         */
+        SignedDigits withProduct(SignedDigits other, int[] product) {
+            return new SignedDigits(Multiplication.trim(product, product.length), this.negative != other.negative);
+        }
+
+        /**
+         * Returns the magnitude of this value, without any high-order zero digits - it must not be modified
+         */
+        int[] magnitude() {
+            return this.digits;
+        }
+
+        private SignedDigits shiftLeft(int bits) {
+            int[] result = new int[this.digits.length + 1];
+            DigitArithmetic.shiftLeft(this.digits, this.digits.length, bits, result);
+            return new SignedDigits(Multiplication.trim(result, result.length), this.negative);
+        }
+
+        /**
+         * Divides this value by 2, assuming that the division is exact
+         */
+        private SignedDigits halve() {
+            int[] result = new int[this.digits.length];
+            DigitArithmetic.shiftRight(this.digits, this.digits.length, 1, result);
+            return new SignedDigits(Multiplication.trim(result, result.length), this.negative);
+        }
+
+        /**
+         * Divides this value by 3, assuming that the division is exact
+         */
+        private SignedDigits divideBy3() {
+            int[] result = new int[this.digits.length];
+            DigitArithmetic.divideByDigit(this.digits, this.digits.length, 3, result);
+            return new SignedDigits(Multiplication.trim(result, result.length), this.negative);
+        }
+    }
+
+    /**
+     * Returns the product of a and b
+     *
+     * @return A new array of length aLength + bLength
+     */
+    static int[] multiply(int[] a, int aLength, int[] b, int bLength) {
+        int[] result = new int[aLength + bLength];
+        Multiplication.multiply(a, aLength, b, bLength, result);
+        return result;
+    }
+
+    /**
+     * Writes the product of a and b to result
+     *
+     * @param result The array to write to, whose first aLength + bLength digits must be zero - it must not be the same array as a or b
+     */
+    static void multiply(int[] a, int aLength, int[] b, int bLength, int[] result) {
+        aLength = DigitArithmetic.normalisedLength(a, aLength);
+        bLength = DigitArithmetic.normalisedLength(b, bLength);
+
+        if (aLength < bLength) {
+            int[] tmpDigits = a;
+            a = b;
+            b = tmpDigits;
+
+            int tmpLength = aLength;
+            aLength = bLength;
+            bLength = tmpLength;
+        }
+
+        if (bLength < Constants.KARATSUBA_THRESHOLD) {
+            Multiplication.multiplySchoolbook(a, aLength, b, bLength, result);
+        } else if (bLength >= Constants.NTT_THRESHOLD && aLength + bLength <= NumberTheoreticTransform.MAX_LENGTH) {
+            // The transforms handle unbalanced operands directly, as their cost depends only on the length of the product
+            NumberTheoreticTransform.multiply(a, aLength, b, bLength, result);
+        } else if (2 * bLength <= aLength) {
+            Multiplication.multiplyUnbalanced(a, aLength, b, bLength, result);
+        } else if (bLength < Constants.TOOM_COOK_THRESHOLD) {
+            Multiplication.multiplyKaratsuba(a, aLength, b, bLength, result);
+        } else {
+            Multiplication.multiplyToomCook3(a, aLength, b, bLength, result);
+        }
+    }
+
+    /**
+     * Returns the square of a
+     *
+     * @return A new array of length 2 * aLength
+     */
+    static int[] square(int[] a, int aLength) {
+        int[] result = new int[2 * aLength];
+        Multiplication.square(a, aLength, result);
+        return result;
+    }
+
+    /**
+     * Writes the square of a to result
+     *
+     * @param result The array to write to, whose first 2 * aLength digits must be zero - it must not be the same array as a
+     */
+    static void square(int[] a, int aLength, int[] result) {
+        aLength = DigitArithmetic.normalisedLength(a, aLength);
+
+        if (aLength < Constants.KARATSUBA_SQUARE_THRESHOLD) {
+            Multiplication.squareSchoolbook(a, aLength, result);
+        } else if (aLength < Constants.TOOM_COOK_SQUARE_THRESHOLD) {
+            Multiplication.squareKaratsuba(a, aLength, result);
+        } else if (aLength < Constants.NTT_SQUARE_THRESHOLD || 2 * aLength > NumberTheoreticTransform.MAX_LENGTH) {
+            Multiplication.squareToomCook3(a, aLength, result);
+        } else {
+            NumberTheoreticTransform.square(a, aLength, result);
+        }
+    }
+
+    /**
+     * Multiplies a by b using the Comba method, switching to base 2^64 digits once b is long enough to pay for packing and unpacking them
+     */
+    private static void multiplySchoolbook(int[] a, int aLength, int[] b, int bLength, int[] result) {
+        if (bLength < Constants.LONG_DIGIT_THRESHOLD) {
+            DigitArithmetic.multiply(a, aLength, b, bLength, result);
+            return;
+        }
+
+        long[] aLong = LongDigitArithmetic.pack(a, aLength);
+        long[] bLong = LongDigitArithmetic.pack(b, bLength);
+        long[] product = new long[aLong.length + bLong.length];
+
+        LongDigitArithmetic.multiply(aLong, aLong.length, bLong, bLong.length, product);
+        LongDigitArithmetic.unpack(product, result, aLength + bLength);
+    }
+
+    /**
+     * Squares a using the Comba method, switching to base 2^64 digits in the same way as multiplySchoolbook
+     */
+    private static void squareSchoolbook(int[] a, int aLength, int[] result) {
+        if (aLength < Constants.LONG_DIGIT_THRESHOLD) {
+            DigitArithmetic.square(a, aLength, result);
+            return;
+        }
+
+        long[] aLong = LongDigitArithmetic.pack(a, aLength);
+        long[] product = new long[2 * aLong.length];
+
+        LongDigitArithmetic.square(aLong, aLong.length, product);
+        LongDigitArithmetic.unpack(product, result, 2 * aLength);
+    }
+
+    /**
+     * Multiplies a by a much shorter b, by splitting a into pieces the same size as b
+     */
+    private static void multiplyUnbalanced(int[] a, int aLength, int[] b, int bLength, int[] result) {
+        for (int offset = 0; offset < aLength; offset += bLength) {
+            int[] piece = Multiplication.slice(a, offset, Math.min(offset + bLength, aLength));
+            int[] product = Multiplication.multiply(piece, piece.length, b, bLength);
+
+            DigitArithmetic.addTo(result, offset, product, DigitArithmetic.normalisedLength(product, product.length));
+        }
+    }
+
+    /**
+     * Multiplies a by b, where b has more than half as many digits as a, by splitting each into two halves:
+     * a * b = z2 * B^2 + ((a0 + a1)(b0 + b1) - z2 - z0) * B + z0, where z2 = a1 * b1, z0 = a0 * b0 and B = 2^(32 * half)
+     */
+    private static void multiplyKaratsuba(int[] a, int aLength, int[] b, int bLength, int[] result) {
+        int half = (aLength + 1) / 2;
+
+        int[] a0 = Multiplication.slice(a, 0, half);
+        int[] a1 = Multiplication.slice(a, half, aLength);
+        int[] b0 = Multiplication.slice(b, 0, Math.min(half, bLength));
+        int[] b1 = Multiplication.slice(b, half, bLength);
+
+        int[] z0 = Multiplication.multiply(a0, a0.length, b0, b0.length);
+        int[] z2 = Multiplication.multiply(a1, a1.length, b1, b1.length);
+
+        int[] aSum = Multiplication.add(a0, a1);
+        int[] bSum = Multiplication.add(b0, b1);
+
+        int[] z1 = Multiplication.multiply(aSum, aSum.length, bSum, bSum.length);
+
+        Multiplication.combineKaratsuba(z0, z1, z2, half, result);
+    }
+
+    /**
+     * Squares a by splitting it into two halves, in the same way as multiplyKaratsuba
+     */
+    private static void squareKaratsuba(int[] a, int aLength, int[] result) {
+        int half = (aLength + 1) / 2;
+
+        int[] a0 = Multiplication.slice(a, 0, half);
+        int[] a1 = Multiplication.slice(a, half, aLength);
+
+        int[] z0 = Multiplication.square(a0, a0.length);
+        int[] z2 = Multiplication.square(a1, a1.length);
+
+        int[] aSum = Multiplication.add(a0, a1);
+
+        int[] z1 = Multiplication.square(aSum, aSum.length);
+
+        Multiplication.combineKaratsuba(z0, z1, z2, half, result);
+    }
+
+    /**
+     * Writes z2 * B^2 + (z1 - z2 - z0) * B + z0 to result, where B = 2^(32 * half)
+     */
+    private static void combineKaratsuba(int[] z0, int[] z1, int[] z2, int half, int[] result) {
+        int z0Length = DigitArithmetic.normalisedLength(z0, z0.length);
+        int z1Length = DigitArithmetic.normalisedLength(z1, z1.length);
+        int z2Length = DigitArithmetic.normalisedLength(z2, z2.length);
+
+        // z1 - z2 - z0 is never negative, since z1 = z0 + z2 + a0 * b1 + a1 * b0
+        DigitArithmetic.subtract(z1, z1Length, z0, z0Length, z1);
+        DigitArithmetic.subtract(z1, z1Length, z2, z2Length, z1);
+        z1Length = DigitArithmetic.normalisedLength(z1, z1Length);
+
+        System.arraycopy(z0, 0, result, 0, z0Length);
+        System.arraycopy(z2, 0, result, 2 * half, z2Length);
+        DigitArithmetic.addTo(result, half, z1, z1Length);
+    }
+
+    /**
+     * Multiplies a by b, where b has more than half as many digits as a, by splitting each into three parts
+     * and treating them as polynomials in B = 2^(32 * k), which are evaluated at 0, 1, -1, 2 and infinity,
+     * multiplied pointwise and then interpolated (using the sequence from Bodrato and Zanoni)
+     *
+     * Package-private so that the benchmarks can compare it with the transforms above Constants.NTT_THRESHOLD.
+     */
+    static void multiplyToomCook3(int[] a, int aLength, int[] b, int bLength, int[] result) {
+        int k = (aLength + 2) / 3;
+
+        SignedDigits[] aValues = Multiplication.evaluateToomCook3(a, aLength, k);
+        SignedDigits[] bValues = Multiplication.evaluateToomCook3(b, bLength, k);
+        SignedDigits[] products = new SignedDigits[aValues.length];
+
+        for (int i = 0; i < products.length; i++) {
+            products[i] = aValues[i].multiply(bValues[i]);
+        }
+
+        Multiplication.interpolateToomCook3(products, k, result);
+    }
+
+    /**
+     * Squares a by splitting it into three parts, in the same way as multiplyToomCook3
+     */
+    static void squareToomCook3(int[] a, int aLength, int[] result) {
+        int k = (aLength + 2) / 3;
+
+        SignedDigits[] values = Multiplication.evaluateToomCook3(a, aLength, k);
+        SignedDigits[] products = new SignedDigits[values.length];
+
+        for (int i = 0; i < products.length; i++) {
+            products[i] = values[i].square();
+        }
+
+        Multiplication.interpolateToomCook3(products, k, result);
+    }
+
+    /**
+     * Splits a into three parts, a0 + a1 * B + a2 * B^2 where B = 2^(32 * k),
+     * and returns the values of that polynomial at 0, 1, -1, 2 and infinity
+     */
+    static SignedDigits[] evaluateToomCook3(int[] a, int aLength, int k) {
+        SignedDigits a0 = SignedDigits.of(Multiplication.slice(a, 0, Math.min(k, aLength)));
+        SignedDigits a1 = SignedDigits.of(Multiplication.slice(a, k, Math.min(2 * k, aLength)));
+        SignedDigits a2 = SignedDigits.of(Multiplication.slice(a, 2 * k, aLength));
+
+        SignedDigits aEven = a2.add(a0);
+        SignedDigits aAt1 = aEven.add(a1);
+
+        // a0 + 2 * a1 + 4 * a2
+        SignedDigits aAt2 = aAt1.add(a2).shiftLeft(1).subtract(a0);
+
+        return new SignedDigits[] {a0, aAt1, aEven.subtract(a1), aAt2, a2};
+    }
+
+    /**
+     * Recovers the five coefficients of the product polynomial from its values at 0, 1, -1, 2 and infinity,
+     * and writes the product (the polynomial evaluated at B = 2^(32 * k)) to result
+     */
+    static void interpolateToomCook3(SignedDigits[] values, int k, int[] result) {
+        SignedDigits v0 = values[0];
+        SignedDigits v1 = values[1];
+        SignedDigits vm1 = values[2];
+        SignedDigits v2 = values[3];
+        SignedDigits vInf = values[4];
+
+        SignedDigits t2 = v2.subtract(vm1).divideBy3();
+        SignedDigits tm1 = v1.subtract(vm1).halve();
+        SignedDigits t1 = v1.subtract(v0);
+
+        t2 = t2.subtract(t1).halve();
+        t1 = t1.subtract(tm1).subtract(vInf);
+        t2 = t2.subtract(vInf.shiftLeft(1));
+        tm1 = tm1.subtract(t2);
+
+        // Every coefficient is now non-negative, so the magnitudes can be added straight into the result
+        System.arraycopy(v0.digits, 0, result, 0, v0.digits.length);
+        DigitArithmetic.addTo(result, k, tm1.digits, tm1.digits.length);
+        DigitArithmetic.addTo(result, 2 * k, t1.digits, t1.digits.length);
+        DigitArithmetic.addTo(result, 3 * k, t2.digits, t2.digits.length);
+        DigitArithmetic.addTo(result, 4 * k, vInf.digits, vInf.digits.length);
+    }
+
+    /**
+     * Returns a copy of the digits from index start (inclusive) to end (exclusive), or an empty array if end is before start
+     */
+    static int[] slice(int[] a, int start, int end) {
+        if (end <= start) return new int[0];
+
+        return Multiplication.trim(Arrays.copyOfRange(a, start, end), end - start);
+    }
+
+    /**
+     * Returns the given array without any high-order zero digits, copying it only if necessary
+     */
+    private static int[] trim(int[] a, int length) {
+        int normalisedLength = DigitArithmetic.normalisedLength(a, length);
+
+        if (normalisedLength == a.length) return a;
+
+        return Arrays.copyOf(a, normalisedLength);
+    }
+
+    private static int[] add(int[] a, int[] b) {
+        int[] result = new int[Math.max(a.length, b.length) + 1];
+        DigitArithmetic.add(a, a.length, b, b.length, result);
+        return Multiplication.trim(result, result.length);
+    }
+
+    /**
+     * Returns a - b, where a must not be less than b
+     */
+    private static int[] subtract(int[] a, int[] b) {
+        int[] result = new int[a.length];
+        DigitArithmetic.subtract(a, a.length, b, b.length, result);
+        return Multiplication.trim(result, result.length);
+    }
+
+    /**
+     * Compares two trimmed digit arrays as unsigned values
+     */
+    private static int compare(int[] a, int[] b) {
+        if (a.length != b.length) return a.length - b.length;
+
+        for (int i = a.length - 1; i >= 0; i--) {
+            int diff = MathUtils.unsignedIntCompare(a[i], b[i]);
+            if (diff != 0) return diff;
+        }
+
+        return 0;
+    }
+}
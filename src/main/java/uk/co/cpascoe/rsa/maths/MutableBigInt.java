@@ -0,0 +1,363 @@
+package uk.co.cpascoe.rsa.maths;
+
+import java.util.Arrays;
+
+/**
+ * A non-negative integer that can be modified in place, for arithmetic loops that would otherwise create a new BigInt at every step
+ *
+ * BigInt itself is immutable, so all in-place modification lives here. The digit arrays are kept and reused as the value changes,
+ * and only grow when a result needs more digits than they have, so a loop that keeps its values at a steady size stops allocating
+ * after the first few iterations (although the larger multiplication and division algorithms still allocate internally).
+ * A MutableBigInt is not thread-safe.
+ */
+public class MutableBigInt {
+    /**
+     * The array of base 2^32 digits that represents the value, which may be longer than the value needs
+     */
+    private int[] digits;
+
+    /**
+     * The number of significant digits in the digit array (0 for zero) - every digit at or above this index is zero
+     */
+    private int length;
+
+    /**
+     * A second digit array that products and quotients are written to, which is all zeros whenever it is not in use
+     */
+    private int[] spare = new int[0];
+
+    /**
+     * Creates a new MutableBigInt with the value 0
+     */
+    public MutableBigInt() {
+        this(0);
+    }
+
+    /**
+     * Creates a new MutableBigInt with the value of the given BigInt
+     */
+    public MutableBigInt(BigInt value) {
+        this.digits = value.exportToIntArray();
+        this.length = DigitArithmetic.normalisedLength(this.digits, this.digits.length);
+    }
+
+    /**
+     * Creates a new MutableBigInt with the value of the given int - the sign will be ignored
+     */
+    public MutableBigInt(int value) {
+        this(new BigInt(value));
+    }
+
+    /**
+     * Sets this MutableBigInt to the value of the given BigInt, reusing the existing digit array if it is long enough
+     */
+    public void set(BigInt value) {
+        this.setDigits(value.digitArray(), value.digitCount());
+    }
+
+    /**
+     * Sets this MutableBigInt to the value of the given MutableBigInt, reusing the existing digit array if it is long enough
+     */
+    public void set(MutableBigInt value) {
+        if (value != this) this.setDigits(value.digits, value.length);
+    }
+
+    /**
+     * Returns a BigInt with the current value - later changes to this MutableBigInt do not affect it
+     */
+    public BigInt toBigInt() {
+        return BigInt.wrap(Arrays.copyOf(this.digits, Math.max(this.length, 1)));
+    }
+
+    /**
+     * Returns the number of digits (i.e. the position of the highest-order non-zero digit, plus 1)
+     */
+    public int digitCount() {
+        return Math.max(this.length, 1);
+    }
+
+    /**
+     * Gets the base 2^32 digit at the specified index
+     * @param index The index of the digit - an out-of-range index will return 0
+     */
+    public int getDigit(int index) {
+        if (index >= 0 && index < this.digits.length) {
+            return this.digits[index];
+        }
+
+        return 0;
+    }
+
+    /**
+     * Adds the given BigInt to this MutableBigInt
+     */
+    public void addInPlace(BigInt other) {
+        this.addDigits(other.digitArray(), other.digitCount());
+    }
+
+    /**
+     * Adds the given MutableBigInt to this MutableBigInt
+     */
+    public void addInPlace(MutableBigInt other) {
+        this.addDigits(other.digits, other.length);
+    }
+
+    /**
+     * Subtracts the given BigInt from this MutableBigInt
+     * @throws Error If the other value is larger than this MutableBigInt
+     */
+    public void subtractInPlace(BigInt other) {
+        this.subtractDigits(other.digitArray(), other.digitCount());
+    }
+
+    /**
+     * Subtracts the given MutableBigInt from this MutableBigInt
+     * @throws Error If the other value is larger than this MutableBigInt
+     */
+    public void subtractInPlace(MutableBigInt other) {
+        this.subtractDigits(other.digits, other.length);
+    }
+
+    /**
+     * Sets this MutableBigInt to the product of a and b, either of which may be this MutableBigInt
+     */
+    public void multiplyInto(MutableBigInt a, MutableBigInt b) {
+        this.multiplyDigits(a.digits, a.length, b.digits, b.length, a == b);
+    }
+
+    /**
+     * Sets this MutableBigInt to the product of a and b
+     */
+    public void multiplyInto(BigInt a, BigInt b) {
+        this.multiplyDigits(a.digitArray(), a.digitCount(), b.digitArray(), b.digitCount(), a == b);
+    }
+
+    /**
+     * Sets this MutableBigInt to the product of itself and the given BigInt
+     */
+    public void multiplyInPlace(BigInt other) {
+        this.multiplyDigits(this.digits, this.length, other.digitArray(), other.digitCount(), false);
+    }
+
+    /**
+     * Sets this MutableBigInt to its own square
+     */
+    public void squareInPlace() {
+        this.multiplyDigits(this.digits, this.length, this.digits, this.length, true);
+    }
+
+    /**
+     * Moves the bits of this MutableBigInt by the given number of bits
+     * @param bits The number of bits to move - positive moves bits up, negative down (discarding the lowest bits), and 0 is unchanged
+     */
+    public void shiftInPlace(int bits) {
+        if (this.length == 0 || bits == 0) return;
+
+        if (bits > 0) {
+            this.ensureCapacity(this.length + MathUtils.divCeil(bits, 32));
+            this.length = DigitArithmetic.normalisedLength(this.digits, DigitArithmetic.shiftLeft(this.digits, this.length, bits, this.digits));
+            return;
+        }
+
+        bits = -bits;
+
+        if (bits / 32 >= this.length) {
+            Arrays.fill(this.digits, 0, this.length, 0);
+            this.length = 0;
+            return;
+        }
+
+        int newLength = DigitArithmetic.shiftRight(this.digits, this.length, bits, this.digits);
+
+        // The digits that were shifted down out of the top are not overwritten by shiftRight
+        Arrays.fill(this.digits, newLength, this.length, 0);
+        this.length = DigitArithmetic.normalisedLength(this.digits, newLength);
+    }
+
+    /**
+     * Reduces this MutableBigInt modulo the given modulus
+     * @throws Error If the modulus is zero
+     */
+    public void reduceInPlace(BigInt modulus) {
+        if (modulus.equals(0)) throw new Error("Cannot divide by zero");
+        if (this.compareTo(modulus) < 0) return;
+
+        int modulusLength = modulus.digitCount();
+
+        this.ensureSpare(this.length - modulusLength + 1);
+
+        // Only the remainder is kept, and it is written over the low digits of the dividend once the division is finished
+        DigitArithmetic.divide(this.digits, this.length, modulus.digitArray(), modulusLength, this.spare, this.digits);
+
+        Arrays.fill(this.spare, 0, this.length - modulusLength + 1, 0);
+        Arrays.fill(this.digits, modulusLength, this.length, 0);
+        this.length = DigitArithmetic.normalisedLength(this.digits, modulusLength);
+    }
+
+    /**
+     * Compares this MutableBigInt with a BigInt, to compare values
+     *
+     * @return A number less than 0 if this MutableBigInt is less than the BigInt, a number greater than 0 if it is greater, or 0 if they are equal
+     */
+    public int compareTo(BigInt other) {
+        int[] otherDigits = other.digitArray();
+        int otherLength = DigitArithmetic.normalisedLength(otherDigits, other.digitCount());
+
+        int diff = this.length - otherLength;
+
+        if (diff != 0) return diff;
+
+        for (int i = this.length - 1; i >= 0; i--) {
+            diff = MathUtils.unsignedIntCompare(this.digits[i], otherDigits[i]);
+            if (diff != 0) return diff;
+        }
+
+        return 0;
+    }
+
+    public boolean equals(BigInt other) {
+        return this.compareTo(other) == 0;
+    }
+
+    public boolean equals(int other) {
+        return other >= 0 && this.length <= 1 && this.getDigit(0) == other;
+    }
+
+    /**
+     * Sets the bit at the specified index
+     * @param value The value of the bit - any non-zero value is assumed to be 1
+     * @param bitIndex The zero-based index of the bit to set
+     */
+    public void setBitAt(int value, int bitIndex) {
+        if (value != 0) value = 1;
+
+        int digit = this.getDigit(bitIndex / 32);
+        int bit = (digit & Constants.BIT_MASKS[bitIndex % 32]) == 0 ? 0 : 1;
+
+        if (bit != value) {
+            this.setDigit(digit ^ Constants.BIT_MASKS[bitIndex % 32], bitIndex / 32);
+        }
+    }
+
+    /**
+     * Sets the digit at the specified index
+     * @param digit The base 2^32 digit
+     * @param index The index of the digit - less than 0 will be ignored, greater than the digit count is automatically handled
+     */
+    void setDigit(int digit, int index) {
+        if (index < 0) return;
+        if (index >= this.digits.length) {
+            // Grow geometrically, so that setting consecutive digits doesn't copy the array each time
+            this.digits = Arrays.copyOf(this.digits, Math.max(index + 1, this.digits.length * 2));
+        }
+
+        this.digits[index] = digit;
+
+        if (digit != 0) {
+            this.length = Math.max(this.length, index + 1);
+        } else if (index == this.length - 1) {
+            this.length = DigitArithmetic.normalisedLength(this.digits, index);
+        }
+    }
+
+    /**
+     * Moves all bits up by 1 bit position
+     */
+    void shiftBitsUp() {
+        this.shiftInPlace(1);
+    }
+
+    /**
+     * Moves all bits down by 1 bit position
+     */
+    void shiftBitsDown() {
+        this.shiftInPlace(-1);
+    }
+
+    private void setDigits(int[] other, int otherLength) {
+        otherLength = DigitArithmetic.normalisedLength(other, otherLength);
+
+        this.ensureCapacity(otherLength);
+        System.arraycopy(other, 0, this.digits, 0, otherLength);
+
+        if (this.length > otherLength) Arrays.fill(this.digits, otherLength, this.length, 0);
+        this.length = otherLength;
+    }
+
+    private void addDigits(int[] other, int otherLength) {
+        otherLength = DigitArithmetic.normalisedLength(other, otherLength);
+
+        this.ensureCapacity(Math.max(this.length, otherLength) + 1);
+        this.length = DigitArithmetic.normalisedLength(this.digits, DigitArithmetic.add(this.digits, this.length, other, otherLength, this.digits));
+    }
+
+    private void subtractDigits(int[] other, int otherLength) {
+        otherLength = DigitArithmetic.normalisedLength(other, otherLength);
+
+        if (MutableBigInt.compare(this.digits, this.length, other, otherLength) < 0) {
+            throw new Error("Cannot subtract a number from a smaller number");
+        }
+
+        DigitArithmetic.subtract(this.digits, this.length, other, otherLength, this.digits);
+        this.length = DigitArithmetic.normalisedLength(this.digits, this.length);
+    }
+
+    /**
+     * Writes the product of a and b to the spare array, and then swaps it in as the digits of this MutableBigInt
+     */
+    private void multiplyDigits(int[] a, int aLength, int[] b, int bLength, boolean square) {
+        aLength = DigitArithmetic.normalisedLength(a, aLength);
+        bLength = DigitArithmetic.normalisedLength(b, bLength);
+
+        if (aLength == 0 || bLength == 0) {
+            Arrays.fill(this.digits, 0, this.length, 0);
+            this.length = 0;
+            return;
+        }
+
+        this.ensureSpare(aLength + bLength);
+
+        if (square) {
+            Multiplication.square(a, aLength, this.spare);
+        } else {
+            Multiplication.multiply(a, aLength, b, bLength, this.spare);
+        }
+
+        // The product becomes the value, and the old digits are cleared to become the spare array
+        int[] tmp = this.digits;
+        this.digits = this.spare;
+        this.spare = tmp;
+
+        Arrays.fill(this.spare, 0, this.length, 0);
+        this.length = DigitArithmetic.normalisedLength(this.digits, aLength + bLength);
+    }
+
+    /**
+     * Makes sure that the digit array can hold at least the given number of digits
+     */
+    private void ensureCapacity(int capacity) {
+        if (this.digits.length < capacity) {
+            this.digits = Arrays.copyOf(this.digits, Math.max(capacity, this.digits.length * 2));
+        }
+    }
+
+    /**
+     * Makes sure that the spare array can hold at least the given number of digits
+     */
+    private void ensureSpare(int capacity) {
+        if (this.spare.length < capacity) {
+            this.spare = new int[Math.max(capacity, this.spare.length * 2)];
+        }
+    }
+
+    private static int compare(int[] x, int xLength, int[] y, int yLength) {
+        if (xLength != yLength) return xLength - yLength;
+
+        for (int i = xLength - 1; i >= 0; i--) {
+            int diff = MathUtils.unsignedIntCompare(x[i], y[i]);
+            if (diff != 0) return diff;
+        }
+
+        return 0;
+    }
+}
@@ -0,0 +1,297 @@
+package uk.co.cpascoe.rsa.maths;
+
+/**
+ * Multiplication of very large digit arrays using number-theoretic transforms (NTTs) over three word-sized primes,
+ * which takes O(n log n) time rather than the O(n^1.47) of Toom-Cook 3-way
+ *
+ * Each base 2^32 digit is treated as a polynomial coefficient, and the product's coefficients (each less than n * 2^64)
+ * are found modulo each of the primes with a cyclic convolution, and then recombined with the Chinese Remainder Theorem.
+ * The three primes multiply to more than 2^92, which is enough for operands of up to 2^28 digits, but the transform length
+ * is limited to 2^25 by the prime with the fewest factors of 2 in p - 1.
+ */
+abstract class NumberTheoreticTransform {
+    /**
+     * A prime of the form k * 2^m + 1 (less than 2^31), along with the constants for Montgomery multiplication modulo it
+     */
+    private static class Prime {
+        private final int p;
+
+        /**
+         * The value of -p^-1 mod 2^32
+         */
+        private final int pNegInverse;
+
+        /**
+         * A primitive root modulo p
+         */
+        private final int generator;
+
+        private Prime(int p, int generator) {
+            this.p = p;
+            this.pNegInverse = -DigitArithmetic.inverse(p);
+            this.generator = generator;
+        }
+
+        /**
+         * Returns (a * b * 2^-32) mod p, where a * b < p * 2^32
+         */
+        private int multiply(long a, long b) {
+            long t = a * b;
+            long m = ((int)t * this.pNegInverse) & Constants.UNSIGNED_INT_MASK;
+            // t + m * p is less than 2^64, so the unsigned shift is correct even if the sum overflows a signed long
+            long u = ((t + m * this.p) >>> 32) - this.p;
+
+            return (int)(u + ((u >> 63) & this.p));
+        }
+
+        /**
+         * Returns (a + b) mod p, where a and b are both less than p, without branching (the branches are unpredictable in the transforms)
+         */
+        private int add(int a, int b) {
+            int sum = a - (this.p - b);
+            return sum + ((sum >> 31) & this.p);
+        }
+
+        /**
+         * Returns (a - b) mod p, where a is less than p + b and b is at most p, without branching
+         */
+        private int subtract(int a, int b) {
+            int difference = a - b;
+            return difference + ((difference >> 31) & this.p);
+        }
+
+        /**
+         * Returns (x * 2^32) mod p, the Montgomery form of x
+         */
+        private int toMontgomery(long x) {
+            return (int)((x << 32) % this.p);
+        }
+
+        /**
+         * Returns (base ^ exponent) mod p, without Montgomery form
+         */
+        private long pow(long base, long exponent) {
+            long result = 1;
+            base %= this.p;
+
+            while (exponent > 0) {
+                if ((exponent & 1) == 1) result = (result * base) % this.p;
+                base = (base * base) % this.p;
+                exponent >>= 1;
+            }
+
+            return result;
+        }
+    }
+
+    private static final Prime P1 = new Prime(2013265921, 31);
+    private static final Prime P2 = new Prime(1811939329, 13);
+    private static final Prime P3 = new Prime(2113929217, 5);
+
+    /**
+     * The inverses used in Garner's algorithm for the CRT, in Montgomery form so that one Montgomery multiplication by them
+     * gives a fully reduced result, and the product of the first two primes
+     */
+    private static final int P1_INVERSE_MOD_P2 = P2.toMontgomery(P2.pow(P1.p, P2.p - 2));
+    private static final int P1_INVERSE_MOD_P3 = P3.toMontgomery(P3.pow(P1.p, P3.p - 2));
+    private static final int P2_INVERSE_MOD_P3 = P3.toMontgomery(P3.pow(P2.p, P3.p - 2));
+    private static final long P1_P2 = (long)P1.p * P2.p;
+
+    /**
+     * The longest product, in digits, that the transforms can handle
+     */
+    static final int MAX_LENGTH = 1 << 25;
+
+    /**
+     * Multiplies a by b, writing the product to result
+     *
+     * @param result The array to write to, with a length of at least aLength + bLength, which must be no more than MAX_LENGTH
+     */
+    static void multiply(int[] a, int aLength, int[] b, int bLength, int[] result) {
+        int n = NumberTheoreticTransform.transformLength(aLength + bLength);
+
+        int[] r1 = NumberTheoreticTransform.convolve(P1, a, aLength, b, bLength, n);
+        int[] r2 = NumberTheoreticTransform.convolve(P2, a, aLength, b, bLength, n);
+        int[] r3 = NumberTheoreticTransform.convolve(P3, a, aLength, b, bLength, n);
+
+        NumberTheoreticTransform.recombine(r1, r2, r3, aLength + bLength, result);
+    }
+
+    /**
+     * Squares a, writing the result to result, with one forward transform per prime rather than two
+     *
+     * @param result The array to write to, with a length of at least 2 * aLength, which must be no more than MAX_LENGTH
+     */
+    static void square(int[] a, int aLength, int[] result) {
+        int n = NumberTheoreticTransform.transformLength(2 * aLength);
+
+        int[] r1 = NumberTheoreticTransform.convolve(P1, a, aLength, null, 0, n);
+        int[] r2 = NumberTheoreticTransform.convolve(P2, a, aLength, null, 0, n);
+        int[] r3 = NumberTheoreticTransform.convolve(P3, a, aLength, null, 0, n);
+
+        NumberTheoreticTransform.recombine(r1, r2, r3, 2 * aLength, result);
+    }
+
+    /**
+     * Returns the smallest power of 2 that is at least the given length
+     */
+    private static int transformLength(int length) {
+        int n = 1;
+        while (n < length) n <<= 1;
+        return n;
+    }
+
+    /**
+     * Returns the cyclic convolution of a and b modulo the given prime, with a transform length of n
+     *
+     * @param b The second operand, or null to square a
+     * @return The n coefficients of the product, modulo p
+     */
+    private static int[] convolve(Prime prime, int[] a, int aLength, int[] b, int bLength, int n) {
+        int[] roots = NumberTheoreticTransform.roots(prime, n, false);
+
+        int[] x = NumberTheoreticTransform.reduce(prime, a, aLength, n);
+        NumberTheoreticTransform.forward(prime, x, roots);
+
+        if (b == null) {
+            for (int i = 0; i < n; i++) {
+                x[i] = prime.multiply(x[i], x[i]);
+            }
+        } else {
+            int[] y = NumberTheoreticTransform.reduce(prime, b, bLength, n);
+            NumberTheoreticTransform.forward(prime, y, roots);
+
+            for (int i = 0; i < n; i++) {
+                x[i] = prime.multiply(x[i], y[i]);
+            }
+        }
+
+        NumberTheoreticTransform.inverse(prime, x, NumberTheoreticTransform.roots(prime, n, true));
+
+        // The pointwise products left a factor of 2^-32, and the inverse transform a factor of n,
+        // so both are removed by multiplying by (n^-1 * 2^64) mod p in Montgomery form
+        long nInverse = prime.pow(n, prime.p - 2);
+        int scale = prime.toMontgomery(prime.toMontgomery(nInverse));
+
+        for (int i = 0; i < n; i++) {
+            x[i] = prime.multiply(x[i], scale);
+        }
+
+        return x;
+    }
+
+    /**
+     * Returns the digits of a modulo p, padded with zeros to a length of n
+     */
+    private static int[] reduce(Prime prime, int[] a, int aLength, int n) {
+        int[] x = new int[n];
+
+        for (int i = 0; i < aLength; i++) {
+            // Each prime is more than 2^30, so at most three subtractions are needed
+            long digit = a[i] & Constants.UNSIGNED_INT_MASK;
+            while (digit >= prime.p) digit -= prime.p;
+            x[i] = (int)digit;
+        }
+
+        return x;
+    }
+
+    /**
+     * Returns the Montgomery forms of w^0, w^1, ..., w^(n/2 - 1), where w is a primitive nth root of unity modulo p (or its inverse)
+     */
+    private static int[] roots(Prime prime, int n, boolean inverse) {
+        long w = prime.pow(prime.generator, (prime.p - 1) / n);
+        if (inverse) w = prime.pow(w, prime.p - 2);
+
+        int[] roots = new int[Math.max(n / 2, 1)];
+        roots[0] = prime.toMontgomery(1);
+        int wMontgomery = prime.toMontgomery(w);
+
+        for (int i = 1; i < roots.length; i++) {
+            roots[i] = prime.multiply(roots[i - 1], wMontgomery);
+        }
+
+        return roots;
+    }
+
+    /**
+     * Transforms x in place using decimation in frequency (Gentleman-Sande butterflies), leaving the result in bit-reversed order
+     */
+    private static void forward(Prime prime, int[] x, int[] roots) {
+        int n = x.length;
+
+        for (int length = n; length >= 2; length >>= 1) {
+            int half = length >> 1;
+            int step = n / length;
+
+            for (int start = 0; start < n; start += length) {
+                for (int j = 0; j < half; j++) {
+                    int u = x[start + j];
+                    int v = x[start + j + half];
+
+                    x[start + j] = prime.add(u, v);
+                    x[start + j + half] = prime.multiply(prime.subtract(u, v), roots[j * step]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Transforms x in place using decimation in time (Cooley-Tukey butterflies), taking bit-reversed input and leaving the result in natural order
+     *
+     * The result is n times the true inverse transform.
+     */
+    private static void inverse(Prime prime, int[] x, int[] roots) {
+        int n = x.length;
+
+        for (int length = 2; length <= n; length <<= 1) {
+            int half = length >> 1;
+            int step = n / length;
+
+            for (int start = 0; start < n; start += length) {
+                for (int j = 0; j < half; j++) {
+                    int u = x[start + j];
+                    int v = prime.multiply(x[start + j + half], roots[j * step]);
+
+                    x[start + j] = prime.add(u, v);
+                    x[start + j + half] = prime.subtract(u, v);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recombines the coefficients modulo each prime with Garner's algorithm, and propagates the carries into base 2^32 digits
+     */
+    private static void recombine(int[] r1, int[] r2, int[] r3, int resultLength, int[] result) {
+        // The 128-bit running total, which is the coefficient plus the carry from the previous digits
+        long low = 0;
+        long high = 0;
+
+        for (int k = 0; k < resultLength; k++) {
+            int x1 = r1[k];
+            int x2 = r2[k];
+            int x3 = r3[k];
+
+            // The coefficient is x1 + p1 * t2 + p1 * p2 * t3, where t2 < p2 and t3 < p3 (p1 is larger than p2, so x1 is reduced first)
+            int t2 = P2.multiply(P2.subtract(x2, P2.subtract(x1, P2.p)), P1_INVERSE_MOD_P2);
+            int t3 = P3.multiply(P3.subtract(P3.multiply(P3.subtract(x3, x1), P1_INVERSE_MOD_P3), t2), P2_INVERSE_MOD_P3);
+
+            long lowPart = x1 + (long)P1.p * t2;
+            long productLow = P1_P2 * t3;
+            long productHigh = Math.multiplyHigh(P1_P2, t3);
+
+            low += lowPart;
+            if (Long.compareUnsigned(low, lowPart) < 0) high++;
+
+            low += productLow;
+            if (Long.compareUnsigned(low, productLow) < 0) high++;
+
+            high += productHigh;
+
+            result[k] = (int)low;
+            low = (low >>> 32) | (high << 32);
+            high >>>= 32;
+        }
+    }
+}
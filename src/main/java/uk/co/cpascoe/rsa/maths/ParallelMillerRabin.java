@@ -0,0 +1,104 @@
+package uk.co.cpascoe.rsa.maths;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the rounds of the Miller-Rabin test on several threads of a ForkJoinPool, for the final check of large candidates
+ *
+ * The rounds are independent once trial division has passed, so they are shared between the given number of tasks,
+ * which all use the same MillerRabinTest. As soon as one witness proves the candidate composite, the other tasks stop
+ * before their next round, so a composite costs little more than on one thread. A ParallelMillerRabin is never modified
+ * after it is created, so one instance can be shared between threads.
+ */
+public class ParallelMillerRabin {
+    /**
+     * Runs every (i * groups + index)th round in turn, until they are done or any round has found a witness
+     */
+    private static class Rounds extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final MillerRabinTest test;
+        private final BigInt[] bases;
+        private final int index;
+        private final int groups;
+        private final AtomicBoolean composite;
+
+        private Rounds(MillerRabinTest test, BigInt[] bases, int index, int groups, AtomicBoolean composite) {
+            this.test = test;
+            this.bases = bases;
+            this.index = index;
+            this.groups = groups;
+            this.composite = composite;
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = this.index; i < this.bases.length && !this.composite.get(); i += this.groups) {
+                if (!this.test.isStrongProbablePrime(this.bases[i])) {
+                    this.composite.set(true);
+                }
+            }
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int parallelism;
+
+    /**
+     * Creates a new ParallelMillerRabin that runs up to the given number of rounds at once in the given pool
+     * @throws Error If the parallelism is less than 1
+     */
+    public ParallelMillerRabin(ForkJoinPool pool, int parallelism) {
+        if (parallelism < 1) throw new Error("Parallelism must be at least 1");
+
+        this.pool = pool;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Returns the maximum number of rounds that run at once
+     */
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    /**
+     * Checks whether n is probably prime in the same way as BigInt.isProbablePrime(int), with the rounds run in parallel
+     * @param certainty The number of rounds (more rounds, more certainty) - see MathUtils.millerRabinRounds
+     * @return True if probably prime, false if definitely not prime
+     */
+    public boolean isProbablePrime(BigInt n, int certainty) {
+        int trialDivision = n.trialDivision();
+        if (trialDivision >= 0) return trialDivision == 1;
+
+        MillerRabinTest test = new MillerRabinTest(n, new MontgomeryContext(n));
+
+        // The bases are drawn up front, so that the tasks don't share the random number generator
+        Random r = new SecureRandom();
+        BigInt[] bases = new BigInt[certainty];
+
+        for (int i = 0; i < certainty; i++) {
+            bases[i] = MathUtils.randomBigInt(new BigInt(2), n.subtract(2), r);
+        }
+
+        int groups = Math.min(this.parallelism, certainty);
+        AtomicBoolean composite = new AtomicBoolean(false);
+
+        Rounds[] rounds = new Rounds[groups];
+
+        for (int i = 0; i < groups; i++) {
+            rounds[i] = new Rounds(test, bases, i, groups, composite);
+            this.pool.execute(rounds[i]);
+        }
+
+        for (int i = 0; i < groups; i++) {
+            rounds[i].join();
+        }
+
+        return !composite.get();
+    }
+}
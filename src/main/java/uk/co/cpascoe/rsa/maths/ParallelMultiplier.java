@@ -0,0 +1,242 @@
+package uk.co.cpascoe.rsa.maths;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Multiplies very large BigInts on several threads of a ForkJoinPool, by running the five pointwise products of
+ * Toom-Cook 3-way (or the pieces of an unbalanced product) as separate tasks, recursively
+ *
+ * A product is split until it has been shared between the given number of tasks, or until the smaller operand is below
+ * the cutoff, and then each part is computed on one thread in the same way as BigInt.multiply. No more than the given
+ * number of tasks run at once, so a multiplier can be limited to part of a shared pool. A ParallelMultiplier is never
+ * modified after it is created, so one instance can be shared between threads.
+ */
+public class ParallelMultiplier {
+    /**
+     * The product of a and b (or the square of a, if b is null), computed using up to the given number of tasks
+     */
+    private static class Product extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] a;
+        private final int aLength;
+        private final int[] b;
+        private final int bLength;
+        private final int tasks;
+
+        /**
+         * The number of digits in the smaller operand below which the product is computed on a single thread
+         */
+        private final int cutoff;
+
+        private Product(int[] a, int aLength, int[] b, int bLength, int tasks, int cutoff) {
+            this.a = a;
+            this.aLength = DigitArithmetic.normalisedLength(a, aLength);
+            this.b = b;
+            this.bLength = b == null ? 0 : DigitArithmetic.normalisedLength(b, bLength);
+            this.tasks = tasks;
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (this.b == null) return this.square();
+
+            int[] a = this.a;
+            int aLength = this.aLength;
+            int[] b = this.b;
+            int bLength = this.bLength;
+
+            if (aLength < bLength) {
+                a = this.b;
+                aLength = this.bLength;
+                b = this.a;
+                bLength = this.aLength;
+            }
+
+            if (this.tasks < 2 || bLength < this.cutoff) {
+                return Multiplication.multiply(a, aLength, b, bLength);
+            }
+
+            int[] result = new int[aLength + bLength];
+
+            if (2 * bLength <= aLength) {
+                // Each task takes a run of whole b-sized pieces of a, and the pieces are added together afterwards
+                int pieces = MathUtils.divCeil(aLength, bLength);
+                int count = Math.min(this.tasks, pieces);
+                int chunkLength = MathUtils.divCeil(pieces, count) * bLength;
+
+                Product[] products = new Product[MathUtils.divCeil(aLength, chunkLength)];
+
+                for (int i = 0; i < products.length; i++) {
+                    int[] chunk = Multiplication.slice(a, i * chunkLength, Math.min((i + 1) * chunkLength, aLength));
+                    products[i] = new Product(chunk, chunk.length, b, bLength, 1, this.cutoff);
+                }
+
+                int[][] results = ParallelMultiplier.computeAll(products, this.tasks);
+
+                for (int i = 0; i < results.length; i++) {
+                    DigitArithmetic.addTo(result, i * chunkLength, results[i], DigitArithmetic.normalisedLength(results[i], results[i].length));
+                }
+            } else {
+                int k = (aLength + 2) / 3;
+
+                Multiplication.SignedDigits[] aValues = Multiplication.evaluateToomCook3(a, aLength, k);
+                Multiplication.SignedDigits[] bValues = Multiplication.evaluateToomCook3(b, bLength, k);
+                Product[] products = new Product[aValues.length];
+
+                for (int i = 0; i < products.length; i++) {
+                    int[] x = aValues[i].magnitude();
+                    int[] y = bValues[i].magnitude();
+                    products[i] = new Product(x, x.length, y, y.length, ParallelMultiplier.share(this.tasks, i, products.length), this.cutoff);
+                }
+
+                int[][] results = ParallelMultiplier.computeAll(products, this.tasks);
+
+                for (int i = 0; i < results.length; i++) {
+                    aValues[i] = aValues[i].withProduct(bValues[i], results[i]);
+                }
+
+                Multiplication.interpolateToomCook3(aValues, k, result);
+            }
+
+            return result;
+        }
+
+        private int[] square() {
+            if (this.tasks < 2 || this.aLength < this.cutoff) {
+                return Multiplication.square(this.a, this.aLength);
+            }
+
+            int k = (this.aLength + 2) / 3;
+
+            Multiplication.SignedDigits[] values = Multiplication.evaluateToomCook3(this.a, this.aLength, k);
+            Product[] products = new Product[values.length];
+
+            for (int i = 0; i < products.length; i++) {
+                int[] x = values[i].magnitude();
+                products[i] = new Product(x, x.length, null, 0, ParallelMultiplier.share(this.tasks, i, products.length), this.cutoff);
+            }
+
+            int[][] results = ParallelMultiplier.computeAll(products, this.tasks);
+
+            for (int i = 0; i < results.length; i++) {
+                values[i] = values[i].withProduct(values[i], results[i]);
+            }
+
+            int[] result = new int[2 * this.aLength];
+            Multiplication.interpolateToomCook3(values, k, result);
+            return result;
+        }
+    }
+
+    /**
+     * Computes every (i * groups + index)th product in turn, so that fewer tasks than products can share them
+     */
+    private static class Group extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Product[] products;
+        private final int[][] results;
+        private final int index;
+        private final int groups;
+
+        private Group(Product[] products, int[][] results, int index, int groups) {
+            this.products = products;
+            this.results = results;
+            this.index = index;
+            this.groups = groups;
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = this.index; i < this.products.length; i += this.groups) {
+                this.results[i] = this.products[i].invoke();
+            }
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int parallelism;
+
+    /**
+     * The number of digits in the smaller operand below which products are computed on a single thread
+     */
+    private final int cutoff;
+
+    /**
+     * Creates a new ParallelMultiplier that runs up to the given number of tasks at once in the given pool,
+     * splitting products until the smaller operand has fewer than Constants.PARALLEL_MULTIPLY_THRESHOLD digits
+     * @throws Error If the parallelism is less than 1
+     */
+    public ParallelMultiplier(ForkJoinPool pool, int parallelism) {
+        this(pool, parallelism, Constants.PARALLEL_MULTIPLY_THRESHOLD * 32);
+    }
+
+    /**
+     * Creates a new ParallelMultiplier that runs up to the given number of tasks at once in the given pool,
+     * splitting products until the smaller operand has fewer than the given number of bits
+     * @throws Error If the parallelism or the cutoff is less than 1
+     */
+    public ParallelMultiplier(ForkJoinPool pool, int parallelism, int cutoffBits) {
+        if (parallelism < 1) throw new Error("Parallelism must be at least 1");
+        if (cutoffBits < 1) throw new Error("Cutoff must be at least 1 bit");
+
+        this.pool = pool;
+        this.parallelism = parallelism;
+        // Toom-Cook needs at least three digits to split
+        this.cutoff = Math.max(MathUtils.divCeil(cutoffBits, 32), 3);
+    }
+
+    /**
+     * Returns the maximum number of tasks that run at once
+     */
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    /**
+     * Returns the product of a and b
+     */
+    public BigInt multiply(BigInt a, BigInt b) {
+        if (a.equals(b)) return this.square(a);
+
+        return BigInt.wrap(this.pool.invoke(new Product(a.digitArray(), a.digitCount(), b.digitArray(), b.digitCount(), this.parallelism, this.cutoff)));
+    }
+
+    /**
+     * Returns the square of a
+     */
+    public BigInt square(BigInt a) {
+        return BigInt.wrap(this.pool.invoke(new Product(a.digitArray(), a.digitCount(), null, 0, this.parallelism, this.cutoff)));
+    }
+
+    /**
+     * Computes the given products, running up to the given number of them at once
+     */
+    private static int[][] computeAll(Product[] products, int tasks) {
+        int groups = Math.min(tasks, products.length);
+        int[][] results = new int[products.length][];
+        Group[] forked = new Group[groups];
+
+        for (int i = 0; i < groups; i++) {
+            forked[i] = new Group(products, results, i, groups);
+        }
+
+        ForkJoinTask.invokeAll(forked);
+
+        return results;
+    }
+
+    /**
+     * Returns the number of tasks that the product at the given index may use, when the given number of tasks are shared between count products
+     */
+    private static int share(int tasks, int index, int count) {
+        if (tasks < count) return 1;
+
+        return tasks / count + (index < tasks % count ? 1 : 0);
+    }
+}
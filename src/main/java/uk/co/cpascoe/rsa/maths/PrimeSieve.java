@@ -0,0 +1,142 @@
+package uk.co.cpascoe.rsa.maths;
+
+import java.util.Arrays;
+
+/**
+ * A sieve over a window of odd prime candidates start, start + 2, ..., start + 2 * (size - 1), which marks the
+ * candidates that are divisible by any of the odd primes below Constants.SIEVE_PRIME_LIMIT
+ *
+ * The residue of start modulo each prime is found once, and is then enough to cross off every multiple of that prime
+ * in the window without any more BigInt arithmetic. Moving to the next window only needs the residues to be updated.
+ */
+class PrimeSieve {
+    /**
+     * The odd primes below Constants.SIEVE_PRIME_LIMIT, in increasing order
+     */
+    static final int[] PRIMES = PrimeSieve.oddPrimesBelow(Constants.SIEVE_PRIME_LIMIT);
+
+    private static final PrimeTable TABLE = new PrimeTable(PrimeSieve.PRIMES);
+
+    private BigInt start;
+    private final int size;
+
+    /**
+     * The number of primes in PRIMES that are used - smaller ones when the candidates could be primes from the table
+     */
+    private final int primeCount;
+
+    /**
+     * The value of start mod p for each of the primes that are used
+     */
+    private final int[] residues;
+
+    /**
+     * Whether each candidate in the window is known to be composite
+     */
+    private final boolean[] composite;
+
+    /**
+     * Creates a sieve over the window of the given number of odd candidates beginning at start
+     * @param start The first candidate, which must be odd
+     * @param minimum A lower bound for every candidate - primes at or above it aren't used, so that no prime is crossed off
+     */
+    PrimeSieve(BigInt start, int size, BigInt minimum) {
+        if (start.getBitAt(0) == 0) throw new Error("The start of the sieve must be odd");
+
+        this.start = start;
+        this.size = size;
+        this.composite = new boolean[size];
+
+        int primeCount = PrimeSieve.PRIMES.length;
+
+        if (minimum.digitCount() == 1) {
+            long lowest = minimum.getDigit(0) & Constants.UNSIGNED_INT_MASK;
+            primeCount = 0;
+            while (primeCount < PrimeSieve.PRIMES.length && PrimeSieve.PRIMES[primeCount] < lowest) primeCount++;
+        }
+
+        this.primeCount = primeCount;
+
+        // Only the first primeCount residues are used
+        this.residues = PrimeSieve.TABLE.residues(start);
+
+        this.crossOff();
+    }
+
+    /**
+     * Returns the number of candidates in the window
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the candidate start + 2i
+     */
+    BigInt candidate(int i) {
+        return this.start.add(new BigInt(2 * i));
+    }
+
+    /**
+     * Returns whether the candidate start + 2i has no factors among the sieving primes
+     */
+    boolean survives(int i) {
+        return !this.composite[i];
+    }
+
+    /**
+     * Moves the sieve to the next window of candidates, which begins straight after the last candidate of this one
+     */
+    void next() {
+        long step = 2L * this.size;
+
+        for (int i = 0; i < this.primeCount; i++) {
+            this.residues[i] = (int)((this.residues[i] + step) % PrimeSieve.PRIMES[i]);
+        }
+
+        this.start = this.start.add(new BigInt((int)step));
+        Arrays.fill(this.composite, false);
+        this.crossOff();
+    }
+
+    private void crossOff() {
+        for (int i = 0; i < this.primeCount; i++) {
+            int p = PrimeSieve.PRIMES[i];
+
+            // start + 2j is divisible by p when 2j = -start (mod p), i.e. j = (p - residue) * (p + 1) / 2 (mod p),
+            // since (p + 1) / 2 is the inverse of 2 modulo p
+            int first = (int)((long)(p - this.residues[i]) * ((p + 1) / 2) % p);
+
+            for (int j = first; j < this.size; j += p) {
+                this.composite[j] = true;
+            }
+        }
+    }
+
+    /**
+     * Returns the odd primes below the given limit, using the sieve of Eratosthenes
+     */
+    private static int[] oddPrimesBelow(int limit) {
+        boolean[] composite = new boolean[limit];
+        int count = 0;
+
+        for (int n = 3; n < limit; n += 2) {
+            if (composite[n]) continue;
+
+            count++;
+
+            for (long multiple = (long)n * n; multiple < limit; multiple += 2 * n) {
+                composite[(int)multiple] = true;
+            }
+        }
+
+        int[] primes = new int[count];
+        int index = 0;
+
+        for (int n = 3; n < limit; n += 2) {
+            if (!composite[n]) primes[index++] = n;
+        }
+
+        return primes;
+    }
+}
@@ -0,0 +1,96 @@
+package uk.co.cpascoe.rsa.maths;
+
+import java.util.Arrays;
+
+/**
+ * A table of small primes, grouped so that the residues of a BigInt modulo every prime in a group can be found
+ * with one pass over its digits (by the product of the group) and then a few single-word remainders
+ *
+ * A PrimeTable is never modified after it is created, so one instance can be shared between threads.
+ */
+class PrimeTable {
+    /**
+     * A table of Constants.SMALL_PRIMES, used for trial division
+     */
+    static final PrimeTable SMALL_PRIMES = new PrimeTable(Constants.SMALL_PRIMES);
+
+    private final int[] primes;
+
+    /**
+     * The product of the primes in each group, which is less than 2^31
+     */
+    private final int[] products;
+
+    /**
+     * The index in primes just after the last prime of each group
+     */
+    private final int[] groupEnds;
+
+    /**
+     * Creates a table of the given primes, which must each be less than 2^31 - the array must not be modified afterwards
+     */
+    PrimeTable(int[] primes) {
+        this.primes = primes;
+
+        int[] products = new int[primes.length];
+        int[] groupEnds = new int[primes.length];
+        int groups = 0;
+
+        for (int i = 0; i < primes.length; ) {
+            long product = primes[i++];
+
+            while (i < primes.length && product * primes[i] <= Integer.MAX_VALUE) {
+                product *= primes[i++];
+            }
+
+            products[groups] = (int)product;
+            groupEnds[groups] = i;
+            groups++;
+        }
+
+        this.products = Arrays.copyOf(products, groups);
+        this.groupEnds = Arrays.copyOf(groupEnds, groups);
+    }
+
+    /**
+     * Returns the number of primes in the table
+     */
+    int size() {
+        return this.primes.length;
+    }
+
+    /**
+     * Returns x mod p for every prime p in the table, in the same order as the primes
+     */
+    int[] residues(BigInt x) {
+        int[] residues = new int[this.primes.length];
+        int i = 0;
+
+        for (int group = 0; group < this.products.length; group++) {
+            int remainder = x.modInt(this.products[group]);
+
+            for (; i < this.groupEnds[group]; i++) {
+                residues[i] = remainder % this.primes[i];
+            }
+        }
+
+        return residues;
+    }
+
+    /**
+     * Returns whether any prime in the table divides x
+     */
+    boolean hasFactor(BigInt x) {
+        int i = 0;
+
+        for (int group = 0; group < this.products.length; group++) {
+            int remainder = x.modInt(this.products[group]);
+
+            for (; i < this.groupEnds[group]; i++) {
+                if (remainder % this.primes[i] == 0) return true;
+            }
+        }
+
+        return false;
+    }
+}
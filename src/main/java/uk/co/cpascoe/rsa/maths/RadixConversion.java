@@ -0,0 +1,331 @@
+package uk.co.cpascoe.rsa.maths;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Conversion of BigInts to and from strings in any radix from 2 to 36, using divide-and-conquer for large values
+ *
+ * Each base 2^32 digit holds a fixed number of characters (a "word" of radix^k < 2^32), so short values are converted
+ * one word at a time. Longer values are split in half by the cached powers word^(2^i): printing divides by the power,
+ * using a cached BarrettReducer so that the division costs a few multiplications, and parsing multiplies by it.
+ * Both then take O(M(n) log n) time, where M(n) is the cost of multiplication, rather than O(n^2).
+ *
+ * The powers of up to Constants.RADIX_POWER_CACHE_DIGITS digits (and the reducers for those that printing has used) are
+ * cached for each radix, and larger ones are computed for each conversion that needs them, so the cache never holds more
+ * than a few times that many digits per radix.
+ */
+abstract class RadixConversion {
+    /**
+     * The number of characters of each radix that fit in a base 2^32 digit
+     */
+    private static final int[] CHARACTERS_PER_WORD = new int[Character.MAX_RADIX + 1];
+
+    /**
+     * The value of radix^CHARACTERS_PER_WORD[radix] for each radix, as an unsigned int
+     */
+    private static final int[] WORD = new int[Character.MAX_RADIX + 1];
+
+    /**
+     * The cached powers word^(2^i) of each radix - each array is replaced by a longer one rather than modified, so it can
+     * be read without a lock
+     */
+    private static final AtomicReferenceArray<BigInt[]> POWERS = new AtomicReferenceArray<BigInt[]>(Character.MAX_RADIX + 1);
+
+    /**
+     * The reducers for the first cached powers of each radix, which only printing needs, replaced in the same way
+     */
+    private static final AtomicReferenceArray<BarrettReducer[]> REDUCERS = new AtomicReferenceArray<BarrettReducer[]>(Character.MAX_RADIX + 1);
+
+    static {
+        for (int radix = Character.MIN_RADIX; radix <= Character.MAX_RADIX; radix++) {
+            long word = radix;
+            int characters = 1;
+
+            while (word * radix <= Constants.UNSIGNED_INT_MASK) {
+                word *= radix;
+                characters++;
+            }
+
+            RadixConversion.CHARACTERS_PER_WORD[radix] = characters;
+            RadixConversion.WORD[radix] = (int)word;
+            RadixConversion.POWERS.set(radix, new BigInt[0]);
+            RadixConversion.REDUCERS.set(radix, new BarrettReducer[0]);
+        }
+    }
+
+    /**
+     * Returns the representation of x in the given radix, without leading zeros, using lowercase letters for digits above 9
+     * @throws Error If the radix is not between 2 and 36
+     */
+    static String toString(BigInt x, int radix) {
+        RadixConversion.checkRadix(radix);
+
+        if (x.equals(0)) return "0";
+
+        BigInt[] powers = RadixConversion.powers(radix, Integer.MAX_VALUE, x.digitCount());
+        BarrettReducer[] reducers = RadixConversion.reducers(radix, powers, x.digitCount());
+
+        StringBuilder builder = new StringBuilder();
+        RadixConversion.append(x, radix, reducers, 0, builder);
+        return builder.toString();
+    }
+
+    /**
+     * Returns the value of the given string of digits in the given radix (upper or lowercase)
+     * @throws Error If the radix is not between 2 and 36, or the string is empty or contains an invalid digit
+     */
+    static BigInt parse(String s, int radix) {
+        RadixConversion.checkRadix(radix);
+
+        if (s.isEmpty()) throw new Error("Cannot parse an empty string");
+
+        for (int i = 0; i < s.length(); i++) {
+            // Character.digit also accepts non-ASCII digits, such as fullwidth ones, which toString never produces
+            if (s.charAt(i) > 'z' || Character.digit(s.charAt(i), radix) < 0) {
+                throw new Error("Invalid digit '" + s.charAt(i) + "' for radix " + radix);
+            }
+        }
+
+        // The largest power that parse splits by has fewer than half as many characters as the string
+        int count = 1;
+        while ((RadixConversion.CHARACTERS_PER_WORD[radix] << count) < s.length()) count++;
+
+        BigInt[] powers = RadixConversion.powers(radix, count, Integer.MAX_VALUE);
+
+        return RadixConversion.parse(s, 0, s.length(), radix, powers);
+    }
+
+    private static void checkRadix(int radix) {
+        if (radix < Character.MIN_RADIX || radix > Character.MAX_RADIX) {
+            throw new Error("Radix must be between " + Character.MIN_RADIX + " and " + Character.MAX_RADIX);
+        }
+    }
+
+    /**
+     * Appends the digits of x to the builder, with leading zeros to make at least the given number of characters
+     */
+    private static void append(BigInt x, int radix, BarrettReducer[] reducers, int minLength, StringBuilder builder) {
+        if (x.digitCount() < Constants.RADIX_TO_STRING_THRESHOLD) {
+            RadixConversion.appendWords(x, radix, minLength, builder);
+            return;
+        }
+
+        // The largest power with fewer digits than x, which is never more than x but has a square larger than x,
+        // so the quotient is not zero and x splits into two roughly equal halves
+        int i = 0;
+        while (i + 1 < reducers.length && reducers[i + 1].getModulus().digitCount() < x.digitCount()) i++;
+
+        BigInt.DivisionResult halves = reducers[i].divide(x);
+        int lowLength = RadixConversion.CHARACTERS_PER_WORD[radix] << i;
+
+        RadixConversion.append(halves.quotient(), radix, reducers, minLength - lowLength, builder);
+        RadixConversion.append(halves.remainder(), radix, reducers, lowLength, builder);
+    }
+
+    /**
+     * Appends the digits of x to the builder one word at a time, with leading zeros to make at least the given number of characters
+     */
+    private static void appendWords(BigInt x, int radix, int minLength, StringBuilder builder) {
+        int[] digits = x.exportToIntArray();
+        int length = DigitArithmetic.normalisedLength(digits, digits.length);
+
+        // Each word is more than 2^16, so there are no more than two per digit
+        int[] words = new int[2 * digits.length + 1];
+        int wordCount = 0;
+
+        while (length > 0) {
+            words[wordCount++] = DigitArithmetic.divideByDigit(digits, length, RadixConversion.WORD[radix], digits);
+            length = DigitArithmetic.normalisedLength(digits, length);
+        }
+
+        if (wordCount == 0) {
+            RadixConversion.appendZeros(minLength, builder);
+            return;
+        }
+
+        int charactersPerWord = RadixConversion.CHARACTERS_PER_WORD[radix];
+        String highest = Integer.toUnsignedString(words[wordCount - 1], radix);
+
+        RadixConversion.appendZeros(minLength - highest.length() - (wordCount - 1) * charactersPerWord, builder);
+        builder.append(highest);
+
+        for (int i = wordCount - 2; i >= 0; i--) {
+            String word = Integer.toUnsignedString(words[i], radix);
+            RadixConversion.appendZeros(charactersPerWord - word.length(), builder);
+            builder.append(word);
+        }
+    }
+
+    private static void appendZeros(int count, StringBuilder builder) {
+        for (int i = 0; i < count; i++) {
+            builder.append('0');
+        }
+    }
+
+    /**
+     * Returns the value of the characters of s from start (inclusive) to end (exclusive), which are all valid digits
+     */
+    private static BigInt parse(String s, int start, int end, int radix, BigInt[] powers) {
+        int charactersPerWord = RadixConversion.CHARACTERS_PER_WORD[radix];
+
+        if (end - start < Constants.RADIX_PARSE_THRESHOLD * charactersPerWord) {
+            return RadixConversion.parseWords(s, start, end, radix);
+        }
+
+        // The largest power with fewer characters than the string, which become the low half
+        int i = 0;
+        while ((charactersPerWord << (i + 1)) < end - start) i++;
+
+        int split = end - (charactersPerWord << i);
+
+        return RadixConversion.parse(s, start, split, radix, powers)
+            .multiply(powers[i])
+            .add(RadixConversion.parse(s, split, end, radix, powers));
+    }
+
+    /**
+     * Returns the value of the characters of s from start (inclusive) to end (exclusive) by accumulating one word at a time
+     */
+    private static BigInt parseWords(String s, int start, int end, int radix) {
+        int charactersPerWord = RadixConversion.CHARACTERS_PER_WORD[radix];
+        long word = RadixConversion.WORD[radix] & Constants.UNSIGNED_INT_MASK;
+
+        int[] digits = new int[MathUtils.divCeil(end - start, charactersPerWord) + 1];
+        int length = 0;
+
+        // The first chunk takes any characters left over from whole words, so that the rest line up
+        int chunkEnd = start + (end - start) % charactersPerWord;
+        if (chunkEnd == start) chunkEnd += charactersPerWord;
+
+        for (int chunkStart = start; chunkStart < end; chunkStart = chunkEnd, chunkEnd += charactersPerWord) {
+            long carry = Integer.parseUnsignedInt(s.substring(chunkStart, chunkEnd), radix) & Constants.UNSIGNED_INT_MASK;
+
+            for (int i = 0; i < length; i++) {
+                // word * (2^32 - 1) + carry is less than 2^64
+                long product = (digits[i] & Constants.UNSIGNED_INT_MASK) * word + carry;
+                digits[i] = (int)product;
+                carry = product >>> 32;
+            }
+
+            if (carry != 0) digits[length++] = (int)carry;
+        }
+
+        return BigInt.wrap(digits);
+    }
+
+    /**
+     * Returns the powers word^(2^i) in the given radix, up to the first count of them or every one with fewer than
+     * maxDigits digits, whichever is fewer (but always at least word itself)
+     *
+     * The powers come from the cache where possible, and any new ones with no more than Constants.RADIX_POWER_CACHE_DIGITS
+     * digits are added to it. The array must not be modified, and it may hold more powers than were asked for.
+     */
+    private static BigInt[] powers(int radix, int count, int maxDigits) {
+        BigInt[] powers = RadixConversion.POWERS.get(radix);
+
+        if (!RadixConversion.needsNext(powers, count, maxDigits)) return powers;
+
+        if (RadixConversion.shouldCacheNext(powers)) {
+            // Only growing the cache needs the lock, and another thread may have grown it while this one waited
+            synchronized (RadixConversion.POWERS) {
+                powers = RadixConversion.POWERS.get(radix);
+                BigInt[] cached = powers;
+
+                while (RadixConversion.shouldCacheNext(powers) && RadixConversion.needsNext(powers, count, maxDigits)) {
+                    powers = RadixConversion.extend(radix, powers);
+                }
+
+                if (powers != cached) RadixConversion.POWERS.set(radix, powers);
+            }
+        }
+
+        // Any larger powers are only kept for this conversion
+        while (RadixConversion.needsNext(powers, count, maxDigits)) {
+            powers = RadixConversion.extend(radix, powers);
+        }
+
+        return powers;
+    }
+
+    /**
+     * Returns whether the power after the given ones is among the first count powers and has fewer than maxDigits digits
+     */
+    private static boolean needsNext(BigInt[] powers, int count, int maxDigits) {
+        if (powers.length == 0) return true;
+        if (powers.length >= count) return false;
+
+        // The square of a value of n bits has 2n - 1 or 2n bits, and as 2n - 1 is odd both fill the same number of digits
+        long squareBits = 2L * powers[powers.length - 1].bitCount();
+        return (squareBits + 31) / 32 < maxDigits;
+    }
+
+    /**
+     * Returns whether the power after the given ones should be cached, which is when the last of them is within the limit
+     */
+    private static boolean shouldCacheNext(BigInt[] powers) {
+        return powers.length == 0 || powers[powers.length - 1].digitCount() <= Constants.RADIX_POWER_CACHE_DIGITS;
+    }
+
+    /**
+     * Returns a copy of the given powers of the radix with the next power added
+     */
+    private static BigInt[] extend(int radix, BigInt[] powers) {
+        int j = powers.length;
+        powers = Arrays.copyOf(powers, j + 1);
+        powers[j] = j == 0 ? BigInt.wrap(new int[] {RadixConversion.WORD[radix]}) : powers[j - 1].square();
+
+        return powers;
+    }
+
+    /**
+     * Returns reducers for the given powers of the radix, for at least every one with fewer than maxDigits digits
+     *
+     * The reducers for powers that are in the cache are cached too, so that each mu is only computed once. The array must
+     * not be modified, and it may hold more reducers than were asked for.
+     */
+    private static BarrettReducer[] reducers(int radix, BigInt[] powers, int maxDigits) {
+        int count = 0;
+        while (count < powers.length && powers[count].digitCount() < maxDigits) count++;
+
+        BarrettReducer[] reducers = RadixConversion.REDUCERS.get(radix);
+
+        if (reducers.length >= count) return reducers;
+
+        // The powers up to and including the first one over the limit are the ones in the cache
+        int cacheable = 0;
+        while (cacheable < count && (cacheable == 0 || powers[cacheable - 1].digitCount() <= Constants.RADIX_POWER_CACHE_DIGITS)) {
+            cacheable++;
+        }
+
+        if (reducers.length < cacheable) {
+            synchronized (RadixConversion.REDUCERS) {
+                reducers = RadixConversion.REDUCERS.get(radix);
+
+                if (reducers.length < cacheable) {
+                    reducers = RadixConversion.extend(reducers, powers, cacheable);
+                    RadixConversion.REDUCERS.set(radix, reducers);
+                }
+            }
+        }
+
+        // Any others are only kept for this conversion
+        return RadixConversion.extend(reducers, powers, count);
+    }
+
+    /**
+     * Returns the given reducers with ones for the following powers added, up to the first count powers
+     */
+    private static BarrettReducer[] extend(BarrettReducer[] reducers, BigInt[] powers, int count) {
+        if (reducers.length >= count) return reducers;
+
+        int start = reducers.length;
+        reducers = Arrays.copyOf(reducers, count);
+
+        for (int j = start; j < count; j++) {
+            reducers[j] = new BarrettReducer(powers[j]);
+        }
+
+        return reducers;
+    }
+}
@@ -0,0 +1,159 @@
+package uk.co.cpascoe.rsa.maths;
+
+/**
+ * A signed integer, made up of a BigInt magnitude and a sign
+ *
+ * This lets algorithms carry intermediate values that may go negative, such as Bezout coefficients or differences of residues,
+ * and then reduce them modulo some value once at the end. Zero is never negative.
+ */
+public class SignedBigInt implements Comparable<SignedBigInt> {
+    private final BigInt magnitude;
+    private final boolean negative;
+
+    /**
+     * Creates a new non-negative SignedBigInt with the given value
+     */
+    public SignedBigInt(BigInt value) {
+        this(value, false);
+    }
+
+    /**
+     * Creates a new SignedBigInt with the given magnitude and sign
+     * @param negative Whether the value is negative - this is ignored if the magnitude is zero
+     */
+    public SignedBigInt(BigInt magnitude, boolean negative) {
+        this.magnitude = magnitude;
+        this.negative = negative && !magnitude.equals(0);
+    }
+
+    /**
+     * Creates a new SignedBigInt with the value of the given int
+     */
+    public SignedBigInt(int value) {
+        this(new BigInt(value), value < 0);
+    }
+
+    /**
+     * Returns the absolute value of this SignedBigInt
+     */
+    public BigInt magnitude() {
+        return this.magnitude;
+    }
+
+    /**
+     * Returns true if this SignedBigInt is less than zero
+     */
+    public boolean isNegative() {
+        return this.negative;
+    }
+
+    /**
+     * Returns -1, 0 or 1 for negative, zero and positive values respectively
+     */
+    public int signum() {
+        if (this.negative) return -1;
+        return this.magnitude.equals(0) ? 0 : 1;
+    }
+
+    /**
+     * Returns the value of -this
+     */
+    public SignedBigInt negate() {
+        return new SignedBigInt(this.magnitude, !this.negative);
+    }
+
+    /**
+     * Returns the result of the addition of this SignedBigInt and the given SignedBigInt
+     */
+    public SignedBigInt add(SignedBigInt other) {
+        if (this.negative == other.negative) {
+            return new SignedBigInt(this.magnitude.add(other.magnitude), this.negative);
+        }
+
+        // The signs differ, so the result has the sign of whichever has the larger magnitude
+        if (this.magnitude.greaterThanOrEqual(other.magnitude)) {
+            return new SignedBigInt(this.magnitude.subtract(other.magnitude), this.negative);
+        }
+
+        return new SignedBigInt(other.magnitude.subtract(this.magnitude), other.negative);
+    }
+
+    /**
+     * Returns the result of the addition of this SignedBigInt and the given BigInt
+     */
+    public SignedBigInt add(BigInt other) {
+        return this.add(new SignedBigInt(other));
+    }
+
+    /**
+     * Returns the result of this SignedBigInt minus the given SignedBigInt
+     */
+    public SignedBigInt subtract(SignedBigInt other) {
+        return this.add(other.negate());
+    }
+
+    /**
+     * Returns the result of this SignedBigInt minus the given BigInt
+     */
+    public SignedBigInt subtract(BigInt other) {
+        return this.add(new SignedBigInt(other, true));
+    }
+
+    /**
+     * Returns the result of the multiplication of this SignedBigInt and the given SignedBigInt
+     */
+    public SignedBigInt multiply(SignedBigInt other) {
+        return new SignedBigInt(this.magnitude.multiply(other.magnitude), this.negative != other.negative);
+    }
+
+    /**
+     * Returns the result of the multiplication of this SignedBigInt and the given BigInt
+     */
+    public SignedBigInt multiply(BigInt other) {
+        return new SignedBigInt(this.magnitude.multiply(other), this.negative);
+    }
+
+    /**
+     * Returns the least non-negative residue of this SignedBigInt modulo the given modulus
+     * @return The value r, where 0 <= r < modulus and this - r is a multiple of the modulus
+     * @throws Error If the modulus is zero
+     */
+    public BigInt mod(BigInt modulus) {
+        BigInt r = this.magnitude.mod(modulus);
+
+        if (this.negative && !r.equals(0)) return modulus.subtract(r);
+
+        return r;
+    }
+
+    /**
+     * Compares this SignedBigInt with another SignedBigInt, to compare values
+     *
+     * @return A number less than 0 if this SignedBigInt is less than the provided one, a number greater than 0 if this SignedBigInt is greater than the provided one, or 0 if they are equal
+     */
+    public int compareTo(SignedBigInt other) {
+        if (this.negative != other.negative) return this.negative ? -1 : 1;
+
+        int diff = this.magnitude.compareTo(other.magnitude);
+
+        return this.negative ? -diff : diff;
+    }
+
+    public boolean greaterThan(SignedBigInt other) {
+        return this.compareTo(other) > 0;
+    }
+
+    public boolean lessThan(SignedBigInt other) {
+        return this.compareTo(other) < 0;
+    }
+
+    public boolean equals(SignedBigInt other) {
+        return this.compareTo(other) == 0;
+    }
+
+    public boolean equals(int other) {
+        // -Integer.MIN_VALUE overflows back to Integer.MIN_VALUE, which is still 2^31 as an unsigned digit
+        int magnitude = other < 0 ? -other : other;
+        return this.negative == (other < 0) && this.magnitude.digitCount() <= 1 && this.magnitude.getDigit(0) == magnitude;
+    }
+}
@@ -0,0 +1,78 @@
+package uk.co.cpascoe.rsa.maths;
+
+import java.util.Arrays;
+
+/**
+ * Left-to-right sliding-window exponentiation of fixed-length digit arrays, for any multiplication that a subclass provides
+ *
+ * Runs of zero bits in the exponent cost one squaring each, and each window of up to w bits ending in a 1 costs a squaring
+ * per bit and one multiplication by a precomputed odd power of the base, where w is BigInt.slidingWindowWidth.
+ */
+abstract class SlidingWindowExponentiation {
+    /**
+     * Writes the product of a and b to result
+     * @param result The array to write to - it may be the same array as a or b
+     */
+    protected abstract void multiply(int[] a, int[] b, int[] result);
+
+    /**
+     * Returns base ^ exponent, with every value in the representation that multiply works on
+     * @param base The base, which is not modified
+     * @param one The representation of 1, which is the result for an exponent of 0 and has the same length as the base
+     */
+    int[] pow(int[] base, BigInt exponent, int[] one) {
+        int n = one.length;
+        int exponentBits = exponent.bitCount();
+        int windowWidth = BigInt.slidingWindowWidth(exponentBits);
+
+        // Precompute the odd powers base^1, base^3, ..., base^(2^windowWidth - 1)
+        int[][] oddPowers = new int[1 << (windowWidth - 1)][];
+        oddPowers[0] = base;
+
+        if (oddPowers.length > 1) {
+            int[] baseSquared = new int[n];
+            this.multiply(oddPowers[0], oddPowers[0], baseSquared);
+
+            for (int i = 1; i < oddPowers.length; i++) {
+                oddPowers[i] = new int[n];
+                this.multiply(oddPowers[i - 1], baseSquared, oddPowers[i]);
+            }
+        }
+
+        int[] result = Arrays.copyOf(one, n);
+        boolean started = false;
+
+        for (int i = exponentBits - 1; i >= 0; ) {
+            if (!exponent.testBit(i)) {
+                if (started) this.multiply(result, result, result);
+                i--;
+                continue;
+            }
+
+            // Take the longest window (up to windowWidth bits) that starts at bit i and ends with a set bit
+            int low = Math.max(i - windowWidth + 1, 0);
+            int window = exponent.getBits(low, i - low + 1);
+
+            // Drop the zero bits from the bottom of the window, rather than testing one bit at a time
+            int zeros = Integer.numberOfTrailingZeros(window);
+            low += zeros;
+            window >>>= zeros;
+
+            if (started) {
+                for (int j = low; j <= i; j++) {
+                    this.multiply(result, result, result);
+                }
+
+                this.multiply(result, oddPowers[window >>> 1], result);
+            } else {
+                // Squaring 1 is pointless, so the first window is just copied in
+                System.arraycopy(oddPowers[window >>> 1], 0, result, 0, n);
+                started = true;
+            }
+
+            i = low - 1;
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,70 @@
+package uk.co.cpascoe.rsa.maths;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Random;
+
+public class BarrettReducerTests {
+    @Test
+    public void reduce() {
+        BarrettReducer reducer = new BarrettReducer(new BigInt(10));
+
+        assertArrayEquals(new int[] {3}, reducer.reduce(new BigInt(23)).exportToIntArray());
+        assertArrayEquals(new int[] {0}, reducer.reduce(new BigInt(90)).exportToIntArray());
+        assertArrayEquals("Values smaller than the modulus are unchanged", new int[] {7}, reducer.reduce(new BigInt(7)).exportToIntArray());
+        assertArrayEquals("Values too large for Barrett reduction still work", new int[] {6}, reducer.reduce(new BigInt(new int[] {0,0,1})).exportToIntArray());
+    }
+
+    @Test
+    public void reduceMatchesMod() {
+        Random r = new Random(1);
+        BigInt modulus = MathUtils.randomBigInt(1000, r);
+        BarrettReducer reducer = new BarrettReducer(modulus);
+
+        for (int i = 0; i < 100; i++) {
+            BigInt x = MathUtils.randomBigInt(1000, r).multiply(MathUtils.randomBigInt(1000, r));
+            assertTrue(reducer.reduce(x).equals(x.mod(modulus)));
+        }
+    }
+
+    @Test
+    public void multiplyAndSquare() {
+        BigInt modulus = new BigInt(new int[] {0,0,1});
+        BarrettReducer reducer = new BarrettReducer(modulus);
+
+        BigInt a = new BigInt(new int[] {(int)4294967295L,(int)4294967295L});
+        BigInt b = new BigInt(new int[] {5,7});
+
+        assertArrayEquals(new int[] {1}, reducer.square(a).exportToIntArray());
+        assertTrue(reducer.multiply(a, b).equals(a.multiply(b).mod(modulus)));
+    }
+
+    @Test
+    public void divide() {
+        BarrettReducer reducer = new BarrettReducer(new BigInt(10));
+        BigInt.DivisionResult result = reducer.divide(new BigInt(93));
+
+        assertArrayEquals(new int[] {9}, result.quotient().exportToIntArray());
+        assertArrayEquals(new int[] {3}, result.remainder().exportToIntArray());
+        assertTrue("Values smaller than the modulus have a quotient of zero", reducer.divide(new BigInt(7)).quotient().equals(0));
+    }
+
+    @Test
+    public void divideMatchesDivide() {
+        Random r = new Random(2);
+
+        for (int bits : new int[] {100, 3000}) {
+            BigInt modulus = MathUtils.randomBigInt(bits, r);
+            BarrettReducer reducer = new BarrettReducer(modulus);
+
+            for (int i = 0; i < 20; i++) {
+                BigInt x = MathUtils.randomBigInt(bits, r).multiply(MathUtils.randomBigInt(bits, r));
+                BigInt.DivisionResult expected = x.divide(modulus);
+                BigInt.DivisionResult result = reducer.divide(x);
+
+                assertTrue(result.quotient().equals(expected.quotient()));
+                assertTrue(result.remainder().equals(expected.remainder()));
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package uk.co.cpascoe.rsa.maths;
+
+import java.util.Random;
+import uk.co.cpascoe.rsa.Timer;
+
+/**
+ * Simple timing comparisons between alternative implementations - run with `./gradlew benchmark`
+ */
+public class Benchmarks {
+    private static final int WARM_UP_ITERATIONS = 2000;
+    private static final int ITERATIONS = 5000;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        Benchmarks.barrettReduction();
+        Benchmarks.numberTheoreticTransform();
+    }
+
+    /**
+     * Compares BarrettReducer.reduce with BigInt.mod for reducing products of two values less than the modulus
+     */
+    private static void barrettReduction() {
+        Random r = new Random(1);
+
+        for (int bits : new int[] {1024, 2048, 4096}) {
+            BigInt modulus = MathUtils.randomBigInt(bits, r).add(new BigInt(1).shiftBits(bits - 1));
+            BarrettReducer reducer = new BarrettReducer(modulus);
+
+            BigInt[] values = new BigInt[64];
+
+            for (int i = 0; i < values.length; i++) {
+                values[i] = MathUtils.randomBigInt(modulus.bitCount() - 1, r).square();
+            }
+
+            for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                values[i % values.length].mod(modulus);
+                reducer.reduce(values[i % values.length]);
+            }
+
+            for (int round = 0; round < ROUNDS; round++) {
+                Timer.startNano(bits + " bit mod x" + ITERATIONS);
+                for (int i = 0; i < ITERATIONS; i++) {
+                    values[i % values.length].mod(modulus);
+                }
+                Timer.stopNano(bits + " bit mod x" + ITERATIONS);
+
+                Timer.startNano(bits + " bit Barrett reduction x" + ITERATIONS);
+                for (int i = 0; i < ITERATIONS; i++) {
+                    reducer.reduce(values[i % values.length]);
+                }
+                Timer.stopNano(bits + " bit Barrett reduction x" + ITERATIONS);
+            }
+        }
+    }
+
+    /**
+     * Compares Toom-Cook 3-way with number-theoretic transforms for multiplying and squaring, to find Constants.NTT_THRESHOLD
+     *
+     * The transforms pad the product to a power of 2, so they are at their best just below one and at their worst just above.
+     */
+    private static void numberTheoreticTransform() {
+        Random r = new Random(2);
+
+        for (int length : new int[] {1024, 2048, 3072, 4096, 6144, 8192, 12288}) {
+            int[] a = new int[length];
+            int[] b = new int[length];
+
+            for (int i = 0; i < length; i++) {
+                a[i] = r.nextInt();
+                b[i] = r.nextInt();
+            }
+
+            int iterations = Math.max(4, 400000 / length);
+
+            for (int i = 0; i < iterations; i++) {
+                Multiplication.multiplyToomCook3(a, length, b, length, new int[2 * length]);
+                NumberTheoreticTransform.multiply(a, length, b, length, new int[2 * length]);
+            }
+
+            for (int round = 0; round < ROUNDS; round++) {
+                Timer.startNano(length + " digit Toom-Cook multiply x" + iterations);
+                for (int i = 0; i < iterations; i++) {
+                    Multiplication.multiplyToomCook3(a, length, b, length, new int[2 * length]);
+                }
+                Timer.stopNano(length + " digit Toom-Cook multiply x" + iterations);
+
+                Timer.startNano(length + " digit NTT multiply x" + iterations);
+                for (int i = 0; i < iterations; i++) {
+                    NumberTheoreticTransform.multiply(a, length, b, length, new int[2 * length]);
+                }
+                Timer.stopNano(length + " digit NTT multiply x" + iterations);
+
+                Timer.startNano(length + " digit Toom-Cook square x" + iterations);
+                for (int i = 0; i < iterations; i++) {
+                    Multiplication.squareToomCook3(a, length, new int[2 * length]);
+                }
+                Timer.stopNano(length + " digit Toom-Cook square x" + iterations);
+
+                Timer.startNano(length + " digit NTT square x" + iterations);
+                for (int i = 0; i < iterations; i++) {
+                    NumberTheoreticTransform.square(a, length, new int[2 * length]);
+                }
+                Timer.stopNano(length + " digit NTT square x" + iterations);
+            }
+        }
+    }
+}
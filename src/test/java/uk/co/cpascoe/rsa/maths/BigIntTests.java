@@ -1,5 +1,7 @@
 package uk.co.cpascoe.rsa.maths;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -34,18 +36,56 @@ public class BigIntTests {
         assertArrayEquals(new int[] {1,2,3,4}, new BigInt(new byte[] {1,0,0,0,2,0,0,0,3,0,0,0,4,0,0,0}).exportToIntArray());
     }
 
+    @Test
+    public void createFromByteArrayRange() {
+        byte[] data = new byte[] {9,1,2,3,4,5,9};
+        assertArrayEquals(new int[] {67305985,5}, new BigInt(data, 1, 5, ByteOrder.LITTLE_ENDIAN).exportToIntArray());
+        assertArrayEquals(new int[] {16909060,9}, new BigInt(data, 0, 5, ByteOrder.BIG_ENDIAN).exportToIntArray());
+        assertArrayEquals(new int[] {0}, new BigInt(data, 3, 0, ByteOrder.BIG_ENDIAN).exportToIntArray());
+    }
+
+    @Test
+    public void createFromByteBuffer() {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[] {9,0,0,0,1,2,9});
+        buffer.position(1).limit(6);
+
+        assertArrayEquals("Big-endian is the default ByteBuffer order", new int[] {258}, new BigInt(buffer).exportToIntArray());
+        assertEquals("The buffer's position should not change", 1, buffer.position());
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        assertArrayEquals(new int[] {16777216,2}, new BigInt(buffer).exportToIntArray());
+    }
+
+    @Test
+    public void createFromEmptyArray() {
+        BigInt[] zeros = new BigInt[] {
+            new BigInt(new int[0]),
+            new BigInt(new byte[0]),
+            new BigInt(ByteBuffer.allocate(0)),
+            BigInt.wrap(new int[0]),
+            MathUtils.randomBigInt(0, new java.util.Random(1))
+        };
+
+        for (BigInt zero : zeros) {
+            assertArrayEquals(new int[] {0}, zero.exportToIntArray());
+            assertArrayEquals("Adding to an empty array", new int[] {5}, zero.add(new BigInt(5)).exportToIntArray());
+            assertArrayEquals("Adding an empty array", new int[] {5}, new BigInt(5).add(zero).exportToIntArray());
+            assertArrayEquals("Subtracting an empty array", new int[] {5}, new BigInt(5).subtract(zero).exportToIntArray());
+            assertArrayEquals(new int[] {0}, zero.subtract(zero).exportToIntArray());
+            assertArrayEquals(new int[] {0}, zero.shiftBits(40).exportToIntArray());
+            assertArrayEquals(new int[] {0}, zero.shiftBits(-3).exportToIntArray());
+            assertArrayEquals(new int[] {0}, zero.multiply(new BigInt(new int[] {1,2,3})).exportToIntArray());
+            assertArrayEquals(new int[] {0}, new BigInt(new int[] {1,2,3}).multiply(zero).exportToIntArray());
+            assertArrayEquals(new int[] {0}, zero.square().exportToIntArray());
+        }
+    }
+
     @Test
     public void digitCount() {
         assertEquals(1, new BigInt(0).digitCount());
         assertEquals(1, new BigInt((int)4294967295L).digitCount());
         assertEquals(2, new BigInt(new int[] {0,1}).digitCount());
         assertEquals(2, new BigInt(new int[] {0,(int)4294967295L}).digitCount());
-
-        BigInt x = new BigInt(1);
-        x.setDigit(2, 1000);
-        assertEquals(1001, x.digitCount());
-        x.setDigit(0, 1000);
-        assertEquals(1, x.digitCount());
     }
 
     @Test
@@ -67,6 +107,8 @@ public class BigIntTests {
         byte[] b = new byte[256];
         b[255] = (byte)255;
         assertEquals(2048, new BigInt(b).bitCount());
+
+        assertEquals("Leading zero digits should be ignored", 33, new BigInt(new int[] {0,1,0,0}).bitCount());
     }
 
     @Test
@@ -76,6 +118,7 @@ public class BigIntTests {
         assertEquals(1, new BigInt(2).getLowestSetBit());
         assertEquals(0, new BigInt(3).getLowestSetBit());
         assertEquals(7, new BigInt(128).getLowestSetBit());
+        assertEquals(64, new BigInt(new int[] {0,0,1}).getLowestSetBit());
     }
 
     @Test
@@ -89,50 +132,12 @@ public class BigIntTests {
     }
 
     @Test
-    public void setBitAt() {
-        BigInt x = new BigInt(2);
-        x.setBitAt(1, 0);
-        assertArrayEquals(new int[] {3}, x.exportToIntArray());
-
-        x.setBitAt(0, 1);
-        assertArrayEquals(new int[] {1}, x.exportToIntArray());
-
-        x.setBitAt(1, 16);
-        assertArrayEquals(new int[] {65537}, x.exportToIntArray());
-        x.setBitAt(1, 16);
-        assertArrayEquals("Setting a set bit should not change the value", new int[] {65537}, x.exportToIntArray());
-    }
-
-    @Test
-    public void shiftBitsUp() {
-        BigInt x = new BigInt(1);
-        x.shiftBitsUp();
-        assertArrayEquals(new int[] {2}, x.exportToIntArray());
-        x = new BigInt(3);
-        x.shiftBitsUp();
-        assertArrayEquals(new int[] {6}, x.exportToIntArray());
-        x = new BigInt(new int[] {1,2,3,4});
-        x.shiftBitsUp();
-        assertArrayEquals(new int[] {2,4,6,8}, x.exportToIntArray());
-        x = new BigInt(new int[] {(int)4294967295L});
-        x.shiftBitsUp();
-        assertArrayEquals(new int[] {(int)4294967294L,1}, x.exportToIntArray());
-    }
-
-    @Test
-    public void shiftBitsDown() {
-        BigInt x = new BigInt(1);
-        x.shiftBitsDown();
-        assertArrayEquals(new int[] {0}, x.exportToIntArray());
-        x = new BigInt(2);
-        x.shiftBitsDown();
-        assertArrayEquals(new int[] {1}, x.exportToIntArray());
-        x = new BigInt(new int[] {3,7});
-        x.shiftBitsDown();
-        assertArrayEquals(new int[] {Constants.BIT_MASKS[31] + 1, 3}, x.exportToIntArray());
-        x = new BigInt(new int[] {(int)4294967295L});
-        x.shiftBitsDown();
-        assertArrayEquals(new int[] {Constants.BIT_MASKS[31] - 1}, x.exportToIntArray());
+    public void getBits() {
+        assertEquals(6, new BigInt(45).getBits(1, 3));
+        assertEquals(0, new BigInt(45).getBits(0, 0));
+        assertEquals("A window can span two digits", 7, new BigInt(new int[] {Constants.BIT_MASKS[31] | Constants.BIT_MASKS[30],1}).getBits(30, 3));
+        assertEquals("A window can be a whole digit", (int)4294967295L, new BigInt(new int[] {0,(int)4294967295L}).getBits(32, 32));
+        assertEquals("Bits past the end are 0", 1, new BigInt(1).getBits(0, 32));
     }
 
     @Test
@@ -155,52 +160,98 @@ public class BigIntTests {
     }
 
     @Test
-    public void getDigit() {
-        assertEquals("It should return 0 for an out-of-range index", 0, new BigInt(1).getDigit(1024));
-        assertEquals("It should return the digit for a valid index", 1, new BigInt(1).getDigit(0));
+    public void lowBits() {
+        assertArrayEquals(new int[] {0}, new BigInt(7).lowBits(0).exportToIntArray());
+        assertArrayEquals(new int[] {3}, new BigInt(7).lowBits(2).exportToIntArray());
+        assertArrayEquals(new int[] {123,4}, new BigInt(new int[] {123,12}).lowBits(35).exportToIntArray());
+        assertArrayEquals("Keeping more bits than there are returns the same value", new int[] {123,12}, new BigInt(new int[] {123,12}).lowBits(1000).exportToIntArray());
     }
 
     @Test
-    public void setDigit() {
-        BigInt x = new BigInt(0);
-        x.setDigit(123, 0);
-        assertEquals(123, x.getDigit(0));
+    public void highBits() {
+        assertArrayEquals(new int[] {7}, new BigInt(7).highBits(0).exportToIntArray());
+        assertArrayEquals(new int[] {1}, new BigInt(7).highBits(2).exportToIntArray());
+        assertArrayEquals(new int[] {1}, new BigInt(new int[] {123,12}).highBits(35).exportToIntArray());
+        assertArrayEquals(new int[] {0}, new BigInt(new int[] {123,12}).highBits(64).exportToIntArray());
+    }
 
-        x.setDigit(456, 1);
-        assertEquals(456, x.getDigit(1));
+    @Test
+    public void testBit() {
+        assertTrue(new BigInt(5).testBit(0));
+        assertFalse(new BigInt(5).testBit(1));
+        assertTrue(new BigInt(new int[] {0,2}).testBit(33));
+        assertFalse("Bits past the end are 0", new BigInt(5).testBit(1000));
+    }
 
-        x.setDigit(7, 1000);
-        assertEquals(7, x.getDigit(1000));
+    @Test
+    public void setBit() {
+        assertArrayEquals(new int[] {7}, new BigInt(5).setBit(1).exportToIntArray());
+        assertArrayEquals(new int[] {5,0,1}, new BigInt(5).setBit(64).exportToIntArray());
+
+        BigInt x = new BigInt(5);
+        x.setBit(1);
+        assertArrayEquals("The original value should not change", new int[] {5}, x.exportToIntArray());
     }
 
     @Test
-    public void shiftDigits() {
-        assertArrayEquals(new int[] {0,1}, new BigInt(1).shiftDigits(1).exportToIntArray());
-        assertArrayEquals(new int[] {0,0,1}, new BigInt(1).shiftDigits(2).exportToIntArray());
-        assertArrayEquals(new int[] {1}, new BigInt(new int[] {0,1}).shiftDigits(-1).exportToIntArray());
-        assertArrayEquals(new int[] {0,1}, new BigInt(new int[] {0,0,0,1}).shiftDigits(-2).exportToIntArray());
+    public void clearBit() {
+        assertArrayEquals(new int[] {4}, new BigInt(5).clearBit(0).exportToIntArray());
+        assertArrayEquals(new int[] {5}, new BigInt(5).clearBit(1).exportToIntArray());
+        assertArrayEquals("Clearing the highest bit should shorten the value", new int[] {5}, new BigInt(new int[] {5,1}).clearBit(32).exportToIntArray());
+        assertEquals(1, new BigInt(new int[] {5,1}).clearBit(32).digitCount());
     }
 
     @Test
-    public void addToDigit() {
-        BigInt x = new BigInt(1);
-        x.addToDigit(2, 0);
-        assertEquals("Correctly increments a single digit", 3, x.getDigit(0));
+    public void flipBit() {
+        assertArrayEquals(new int[] {4}, new BigInt(5).flipBit(0).exportToIntArray());
+        assertArrayEquals(new int[] {7}, new BigInt(5).flipBit(1).exportToIntArray());
+    }
 
-        x.setDigit((int)4294967295L, 0);
-        x.addToDigit(1, 0);
-        assertArrayEquals("Carries 1 on overflow", new int[] {0,1}, x.exportToIntArray());
+    @Test
+    public void and() {
+        assertArrayEquals(new int[] {4}, new BigInt(12).and(new BigInt(5)).exportToIntArray());
+        assertArrayEquals(new int[] {1}, new BigInt(new int[] {3,7}).and(new BigInt(5)).exportToIntArray());
+        assertArrayEquals(new int[] {0}, new BigInt(new int[] {0,7}).and(new BigInt(5)).exportToIntArray());
     }
 
     @Test
-    public void subtractFromDigit() {
-        BigInt x = new BigInt(3);
-        x.subtractFromDigit(1, 0);
-        assertArrayEquals("Correctly subtracts from a single digit", new int[] {2}, x.exportToIntArray());
+    public void or() {
+        assertArrayEquals(new int[] {13}, new BigInt(12).or(new BigInt(5)).exportToIntArray());
+        assertArrayEquals(new int[] {7,7}, new BigInt(5).or(new BigInt(new int[] {3,7})).exportToIntArray());
+    }
 
-        BigInt y = new BigInt(new int[] {0,0,3});
-        y.subtractFromDigit(1, 1);
-        assertArrayEquals("Subtracts 1 on underflow", new int[] {0,(int)4294967295L,2}, y.exportToIntArray());
+    @Test
+    public void xor() {
+        assertArrayEquals(new int[] {9}, new BigInt(12).xor(new BigInt(5)).exportToIntArray());
+        assertArrayEquals(new int[] {6,7}, new BigInt(5).xor(new BigInt(new int[] {3,7})).exportToIntArray());
+        assertArrayEquals("Cancelling the highest digit should shorten the value", new int[] {1}, new BigInt(new int[] {3,7}).xor(new BigInt(new int[] {2,7})).exportToIntArray());
+    }
+
+    @Test
+    public void andNot() {
+        assertArrayEquals(new int[] {8}, new BigInt(12).andNot(new BigInt(5)).exportToIntArray());
+        assertArrayEquals(new int[] {2,7}, new BigInt(new int[] {3,7}).andNot(new BigInt(5)).exportToIntArray());
+    }
+
+    @Test
+    public void not() {
+        assertArrayEquals(new int[] {10}, new BigInt(5).not(4).exportToIntArray());
+        assertArrayEquals(new int[] {-6,1}, new BigInt(5).not(33).exportToIntArray());
+        assertArrayEquals(new int[] {0}, new BigInt(5).not(0).exportToIntArray());
+    }
+
+    @Test
+    public void getDigit() {
+        assertEquals("It should return 0 for an out-of-range index", 0, new BigInt(1).getDigit(1024));
+        assertEquals("It should return the digit for a valid index", 1, new BigInt(1).getDigit(0));
+    }
+
+    @Test
+    public void shiftDigits() {
+        assertArrayEquals(new int[] {0,1}, new BigInt(1).shiftDigits(1).exportToIntArray());
+        assertArrayEquals(new int[] {0,0,1}, new BigInt(1).shiftDigits(2).exportToIntArray());
+        assertArrayEquals(new int[] {1}, new BigInt(new int[] {0,1}).shiftDigits(-1).exportToIntArray());
+        assertArrayEquals(new int[] {0,1}, new BigInt(new int[] {0,0,0,1}).shiftDigits(-2).exportToIntArray());
     }
 
     @Test
@@ -257,6 +308,7 @@ public class BigIntTests {
     public void subtractMod() {
         assertArrayEquals(new int[] {9}, new BigInt(3).subtractMod(new BigInt(24), new BigInt(10)).exportToIntArray());
         assertArrayEquals(new int[] {(int)4294967295L,(int)4294967295L}, new BigInt(3).subtractMod(new BigInt(4), new BigInt(new int[] {0,0,1})).exportToIntArray());
+        assertArrayEquals("The difference is reduced even when it is not negative", new int[] {2}, new BigInt(25).subtractMod(new BigInt(3), new BigInt(10)).exportToIntArray());
     }
 
     @Test
@@ -281,18 +333,6 @@ public class BigIntTests {
         assertArrayEquals("Multi-digit squaring with carry should be correct", new int[] {1,(int)4294967294L}, new BigInt(new int[] {(int)4294967295L}).square().exportToIntArray());
     }
 
-    @Test
-    public void getPowerOf2Multiples() {
-        BigInt x = new BigInt(new int[] {1,2,3});
-        BigInt[] pow2Multiples = x.getPowerOf2Multiples(10);
-
-        int p2 = 1;
-        for (int i = 0; i < pow2Multiples.length; i++) {
-            assertTrue(pow2Multiples[i].equals(x.multiply(new BigInt(p2))));
-            p2 *= 2;
-        }
-    }
-
     @Test
     public void divide() {
         // BigInt.quotient and BigInt.mod both depend on BigInt.divide,
@@ -309,6 +349,68 @@ public class BigIntTests {
         BigInt.DivisionResult r3 = new BigInt(new int[] {0,0,1}).divide(new BigInt(new int[] {0,3}));
         assertArrayEquals("Multi-digit division with remainder", new int[] {1431655765}, r3.quotient().exportToIntArray());
         assertArrayEquals("Multi-digit division with remainder", new int[] {0,1}, r3.remainder().exportToIntArray());
+
+        BigInt.DivisionResult r4 = new BigInt(new int[] {7,0,0,5}).divide(new BigInt(new int[] {0,0,0,5}));
+        assertArrayEquals("Multi-digit division by a longer divisor", new int[] {1}, r4.quotient().exportToIntArray());
+        assertArrayEquals("Multi-digit division by a longer divisor", new int[] {7}, r4.remainder().exportToIntArray());
+
+        boolean errorThrown = false;
+
+        try {
+            new BigInt(5).divide(new BigInt(0));
+        } catch (Error ex) {
+            errorThrown = true;
+        }
+
+        assertTrue("Dividing by zero should throw an Error", errorThrown);
+    }
+
+    @Test
+    public void modInt() {
+        assertEquals(3, new BigInt(23).modInt(4));
+        assertEquals(0, new BigInt(0).modInt(7));
+
+        BigInt x = new BigInt(new int[] {123,456,(int)4294967295L,789});
+        assertEquals(x.mod(new BigInt(1000003)).getDigit(0), x.modInt(1000003));
+        assertEquals(x.mod(new BigInt(Integer.MAX_VALUE)).getDigit(0), x.modInt(Integer.MAX_VALUE));
+
+        boolean errorThrown = false;
+
+        try {
+            x.modInt(0);
+        } catch (Error ex) {
+            errorThrown = true;
+        }
+
+        assertTrue("A zero modulus should throw an Error", errorThrown);
+
+        errorThrown = false;
+
+        try {
+            x.modInt(-3);
+        } catch (Error ex) {
+            errorThrown = true;
+        }
+
+        assertTrue("A negative modulus should throw an Error", errorThrown);
+    }
+
+    @Test
+    public void remainderUnsigned() {
+        BigInt x = new BigInt(new int[] {123,456,(int)4294967295L,789});
+        assertEquals(x.mod(new BigInt(1000003)).getDigit(0), x.remainderUnsigned(1000003));
+        assertEquals("Divisors of 2^31 or more are unsigned", x.mod(new BigInt(new int[] {(int)4294967291L})).getDigit(0), x.remainderUnsigned((int)4294967291L));
+        assertEquals(5, new BigInt(5).remainderUnsigned(-1));
+
+        boolean errorThrown = false;
+
+        try {
+            x.remainderUnsigned(0);
+        } catch (Error ex) {
+            errorThrown = true;
+        }
+
+        assertTrue("Dividing by zero should throw an Error", errorThrown);
     }
 
     @Test
@@ -320,6 +422,31 @@ public class BigIntTests {
         BigInt xInverse = x.modInverse(primeModulus);
 
         assertArrayEquals("Correct multi-digit inverse, even if x > modulus", new int[] {1}, x.multiply(xInverse).mod(primeModulus).exportToIntArray());
+
+        assertNull("No inverse if not coprime", new BigInt(6).modInverse(new BigInt(9)));
+        assertNull("Zero has no inverse", new BigInt(0).modInverse(new BigInt(9)));
+    }
+
+    @Test
+    public void inverseModPowerOfTwo() {
+        assertArrayEquals(new int[] {11}, new BigInt(3).inverseModPowerOfTwo(5).exportToIntArray());
+        assertArrayEquals(new int[] {(int)2863311531L}, new BigInt(3).inverseModPowerOfTwo(32).exportToIntArray());
+
+        BigInt x = new BigInt(new int[] {5,6,7,8,9});
+        BigInt inverse = x.inverseModPowerOfTwo(150);
+        assertTrue("Multi-digit inverse", x.multiply(inverse).maskLowerBits(150).equals(1));
+        assertTrue(inverse.bitCount() <= 150);
+        assertTrue("Matches modInverse", new BigInt(13).inverseModPowerOfTwo(4).equals(new BigInt(13).modInverse(new BigInt(16))));
+
+        boolean errorThrown = false;
+
+        try {
+            new BigInt(4).inverseModPowerOfTwo(8);
+        } catch (Error ex) {
+            errorThrown = true;
+        }
+
+        assertTrue("An even number should throw an Error", errorThrown);
     }
 
     @Test
@@ -338,22 +465,24 @@ public class BigIntTests {
     }
 
     @Test
-    public void montgomeryMultiplication() {
-        BigInt m = new BigInt(13);
-        BigInt r = new BigInt(1).shiftBits(m.bitCount());
-
-        BigInt rInverse = r.modInverse(m);
-        BigInt mDash = r.subtract(m.modInverse(r));
-
-        assertTrue(r.equals(16));
+    public void powModEvenModulus() {
+        BigInt base = new BigInt(new int[] {1,5,7});
+        BigInt exponent = new BigInt(new int[] {987654321,123456789});
 
-        BigInt a = new BigInt(5);
-        BigInt b = new BigInt(9);
-
-        BigInt arModM = a.multiply(r).mod(m);
-        BigInt brModM = b.multiply(r).mod(m);
+        assertArrayEquals("Odd part and power of two with several digits each", new int[] {1,355682165,814}, base.powMod(exponent, new BigInt(new int[] {0,768,2304})).exportToIntArray());
+        assertArrayEquals("Modulus that is a power of two", new int[] {1,643304309,25}, base.powMod(exponent, new BigInt(new int[] {0,0,64})).exportToIntArray());
+        assertArrayEquals("Even base with a small exponent", new int[] {36}, new BigInt(6).powMod(new BigInt(2), new BigInt(64)).exportToIntArray());
+        assertArrayEquals("Even base with an exponent large enough to clear the power of two", new int[] {0}, new BigInt(12).powMod(new BigInt(40), new BigInt(new int[] {0,2})).exportToIntArray());
+        assertArrayEquals("Anything to the power of 0 is 1", new int[] {1}, new BigInt(3).powMod(new BigInt(0), new BigInt(12)).exportToIntArray());
+    }
 
-        assertArrayEquals(new int[] {5}, BigInt.montgomeryMultiplication(arModM, brModM, m, mDash, m.bitCount()).exportToIntArray());
+    @Test
+    public void slidingWindowWidth() {
+        assertEquals(1, BigInt.slidingWindowWidth(1));
+        assertEquals(1, BigInt.slidingWindowWidth(7));
+        assertEquals(2, BigInt.slidingWindowWidth(8));
+        assertEquals(6, BigInt.slidingWindowWidth(1024));
+        assertEquals(7, BigInt.slidingWindowWidth(2048));
     }
 
     @Test
@@ -362,9 +491,63 @@ public class BigIntTests {
         assertTrue(new BigInt(2).pow(new BigInt(127)).subtract(new BigInt(1)).isProbablePrime(15));
 
         assertFalse(new BigInt(100).isProbablePrime(15));
+
+        assertTrue("The largest small prime", new BigInt(1619).isProbablePrime(15));
+        assertFalse("The square of a small prime", new BigInt(1621 * 1621).isProbablePrime(15));
+        assertFalse(new BigInt(1).isProbablePrime(15));
+        assertFalse("A product of large small primes", new BigInt(new int[] {0,1}).add(new BigInt(1)).multiply(new BigInt(1613)).isProbablePrime(15));
         assertFalse(new BigInt(2).pow(new BigInt(127)).add(new BigInt(1)).isProbablePrime(15));
     }
 
+    @Test
+    public void isProbablePrimeBailliePsw() {
+        assertTrue(new BigInt(37).isProbablePrime());
+        assertTrue(new BigInt(1621).isProbablePrime());
+        assertTrue(new BigInt(2).pow(new BigInt(127)).subtract(new BigInt(1)).isProbablePrime());
+        assertTrue(new BigInt(2).pow(new BigInt(521)).subtract(new BigInt(1)).isProbablePrime());
+
+        assertFalse(new BigInt(1).isProbablePrime());
+        assertFalse(new BigInt(2).pow(new BigInt(127)).add(new BigInt(1)).isProbablePrime());
+        assertFalse("The square of a prime above the small primes", new BigInt(1621 * 1621).isProbablePrime());
+
+        // Strong pseudoprimes to base 2, which the Lucas test must catch
+        for (int n : new int[] {2047, 3277, 4033, 4681, 8321, 15841, 29341, 42799, 49141, 52633}) {
+            assertFalse(n + " is a base 2 strong pseudoprime", new BigInt(n).passesBailliePsw());
+        }
+
+        assertFalse("A Carmichael number with large factors", new BigInt(1621).multiply(new BigInt(3241)).multiply(new BigInt(4861)).isProbablePrime());
+    }
+
+    @Test
+    public void jacobi() {
+        assertEquals(1, new BigInt(1).jacobi(new BigInt(1)));
+        assertEquals(0, new BigInt(21).jacobi(new BigInt(7)));
+        assertEquals(1, new BigInt(2).jacobi(new BigInt(7)));
+        assertEquals(-1, new BigInt(2).jacobi(new BigInt(5)));
+        assertEquals(-1, new BigInt(3).jacobi(new BigInt(7)));
+        assertEquals("(1001/9907) from the worked example", -1, new BigInt(1001).jacobi(new BigInt(9907)));
+        assertEquals("(7/15) = (7/3)(7/5) = 1 * -1", -1, new BigInt(7).jacobi(new BigInt(15)));
+        assertEquals("(8/21) = (8/3)(8/7) = -1 * 1", -1, new BigInt(8).jacobi(new BigInt(21)));
+        assertEquals("(5/21) = (5/3)(5/7) = -1 * -1", 1, new BigInt(5).jacobi(new BigInt(21)));
+
+        // For a prime p, (a/p) = a^((p-1)/2) mod p, which is p - 1 for -1
+        BigInt p = new BigInt(2).pow(new BigInt(127)).subtract(new BigInt(1));
+        BigInt a = new BigInt(new int[] {123,456,789});
+        BigInt euler = a.powMod(p.subtract(1).shiftBits(-1), p);
+        assertEquals(euler.equals(1) ? 1 : -1, a.jacobi(p));
+        assertEquals("(a/p^2) = (a/p)^2", 1, a.jacobi(p.multiply(p)));
+
+        boolean errorThrown = false;
+
+        try {
+            a.jacobi(new BigInt(10));
+        } catch (Error ex) {
+            errorThrown = true;
+        }
+
+        assertTrue("An even n should throw an Error", errorThrown);
+    }
+
     @Test
     public void compareTo() {
         assertTrue(new BigInt(5).compareTo(new BigInt(6)) < 0);
@@ -375,6 +558,8 @@ public class BigIntTests {
         assertTrue(new BigInt(new int[] {1,2}).compareTo(new BigInt(new int[] {0,2})) > 0);
         assertTrue(new BigInt(new int[] {1,2}).compareTo(new BigInt(new int[] {(int)4294967295L,2})) < 0);
         assertTrue(new BigInt(new int[] {0,10}).compareTo(new BigInt(new int[] {1,8})) > 0);
+        assertTrue("Leading zero digits should be ignored", new BigInt(new int[] {5,0,0}).compareTo(new BigInt(new int[] {5})) == 0);
+        assertTrue("Leading zero digits should be ignored", new BigInt(new int[] {(int)4294967295L,0}).compareTo(new BigInt(new int[] {0,1})) < 0);
     }
 
     @Test
@@ -389,6 +574,70 @@ public class BigIntTests {
         assertArrayEquals(new byte[] {1}, new BigInt(1).exportToByteArray());
         assertArrayEquals(new byte[] {1,1}, new BigInt(257).exportToByteArray());
         assertArrayEquals(new byte[] {(byte)255,(byte)255}, new BigInt(65535).exportToByteArray());
+        assertEquals(0, new BigInt(0).exportToByteArray().length);
+        assertArrayEquals(new byte[] {1,0,0,0,2}, new BigInt(new int[] {2,1}).exportToByteArray(ByteOrder.BIG_ENDIAN));
     }
-}
 
+    @Test
+    public void writeTo() {
+        byte[] dest = new byte[] {9,9,9,9,9,9,9,9};
+        new BigInt(new int[] {67305985,5}).writeTo(dest, 1, 6);
+        assertArrayEquals("Should be padded with zeros to fill the range", new byte[] {9,1,2,3,4,5,0,9}, dest);
+
+        new BigInt(258).writeTo(dest, 0, 3, ByteOrder.BIG_ENDIAN);
+        assertArrayEquals(new byte[] {0,1,2,3,4,5,0,9}, dest);
+
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        new BigInt(16909060).writeTo(buffer);
+        assertArrayEquals(new byte[] {1,2,3,4}, buffer.array());
+
+        boolean errorThrown = false;
+
+        try {
+            new BigInt(256).writeTo(dest, 0, 1);
+        } catch (Error ex) {
+            errorThrown = true;
+        }
+
+        assertTrue("A value that doesn't fit should throw an Error", errorThrown);
+    }
+
+    @Test
+    public void toStringRadix() {
+        assertEquals("0", new BigInt(0).toString());
+        assertEquals("4294967296", new BigInt(new int[] {0,1}).toString());
+        assertEquals("ff", new BigInt(255).toString(16));
+        assertEquals("11111111", new BigInt(255).toString(2));
+        assertEquals("zz", new BigInt(1295).toString(36));
+
+        boolean errorThrown = false;
+
+        try {
+            new BigInt(5).toString(37);
+        } catch (Error ex) {
+            errorThrown = true;
+        }
+
+        assertTrue("A radix above 36 should throw an Error", errorThrown);
+    }
+
+    @Test
+    public void parse() {
+        assertArrayEquals(new int[] {0,1}, BigInt.parse("4294967296").exportToIntArray());
+        assertArrayEquals(new int[] {255}, BigInt.parse("FF", 16).exportToIntArray());
+        assertArrayEquals("Leading zeros are ignored", new int[] {255}, BigInt.parse("00ff", 16).exportToIntArray());
+        assertTrue(BigInt.parse("0").equals(0));
+
+        for (String invalid : new String[] {"", "12a", "-5", "+5", " 1", "\u0661\u0662", "1\uFF11"}) {
+            boolean errorThrown = false;
+
+            try {
+                BigInt.parse(invalid);
+            } catch (Error ex) {
+                errorThrown = true;
+            }
+
+            assertTrue("Parsing '" + invalid + "' should throw an Error, including for non-ASCII digits", errorThrown);
+        }
+    }
+}
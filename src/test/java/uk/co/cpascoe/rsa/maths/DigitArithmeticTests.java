@@ -0,0 +1,105 @@
+package uk.co.cpascoe.rsa.maths;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DigitArithmeticTests {
+    @Test
+    public void add() {
+        int[] result = new int[3];
+        assertEquals(3, DigitArithmetic.add(new int[] {(int)4294967295L,(int)4294967295L}, 2, new int[] {1}, 1, result));
+        assertArrayEquals("Carry should propagate through every digit", new int[] {0,0,1}, result);
+
+        int[] a = new int[] {1,2,0};
+        DigitArithmetic.add(a, 2, new int[] {3,4}, 2, a);
+        assertArrayEquals("The result can be written over an input", new int[] {4,6,0}, a);
+    }
+
+    @Test
+    public void subtract() {
+        int[] result = new int[3];
+        assertEquals(3, DigitArithmetic.subtract(new int[] {0,0,1}, 3, new int[] {1}, 1, result));
+        assertArrayEquals("Borrow should propagate through every digit", new int[] {(int)4294967295L,(int)4294967295L,0}, result);
+    }
+
+    @Test
+    public void multiplyAdd() {
+        int[] result = new int[3];
+        assertEquals(3, DigitArithmetic.multiplyAdd(new int[] {(int)4294967295L,(int)4294967295L}, Integer.MAX_VALUE, new int[] {(int)4294967295L,(int)4294967295L}, Integer.MAX_VALUE, 2, result));
+        assertArrayEquals("(2^64 - 1) * (2^32 - 2)", new int[] {2,(int)4294967295L,(int)4294967293L}, result);
+    }
+
+    @Test
+    public void multiplySubtract() {
+        int[] result = new int[2];
+        assertEquals(2, DigitArithmetic.multiplySubtract(new int[] {0,3}, 2, new int[] {1,5}, 1, 2, result));
+        assertArrayEquals("Borrow should propagate", new int[] {(int)4294967295L,0}, result);
+    }
+
+    @Test
+    public void shiftLeft() {
+        int[] result = new int[4];
+        assertEquals(4, DigitArithmetic.shiftLeft(new int[] {3,(int)4294967295L}, 2, 33, result));
+        assertArrayEquals(new int[] {0,6,(int)4294967294L,1}, result);
+
+        int[] a = new int[] {Constants.BIT_MASKS[31],0};
+        DigitArithmetic.shiftLeft(a, 1, 1, a);
+        assertArrayEquals("The result can be written over the input", new int[] {0,1}, a);
+    }
+
+    @Test
+    public void shiftRight() {
+        int[] result = new int[2];
+        assertEquals(1, DigitArithmetic.shiftRight(new int[] {0,6}, 2, 33, result));
+        assertEquals(3, result[0]);
+        assertEquals(0, DigitArithmetic.shiftRight(new int[] {1}, 1, 32, result));
+
+        int[] a = new int[] {1,1};
+        DigitArithmetic.shiftRight(a, 2, 1, a);
+        assertArrayEquals("The result can be written over the input", new int[] {Constants.BIT_MASKS[31],0}, a);
+    }
+
+    @Test
+    public void multiply() {
+        int[] result = new int[4];
+        assertEquals(4, DigitArithmetic.multiply(new int[] {(int)4294967295L,(int)4294967295L}, 2, new int[] {(int)4294967295L,(int)4294967295L}, 2, result));
+        assertArrayEquals("(2^64 - 1)^2 should be correct", new int[] {1,0,(int)4294967294L,(int)4294967295L}, result);
+
+        result = new int[3];
+        DigitArithmetic.multiply(new int[] {2,3}, 2, new int[] {5}, 1, result);
+        assertArrayEquals("Operands can have different lengths", new int[] {10,15,0}, result);
+    }
+
+    @Test
+    public void square() {
+        int[] result = new int[4];
+        assertEquals(4, DigitArithmetic.square(new int[] {(int)4294967295L,(int)4294967295L}, 2, result));
+        assertArrayEquals("(2^64 - 1)^2 should be correct", new int[] {1,0,(int)4294967294L,(int)4294967295L}, result);
+
+        result = new int[6];
+        DigitArithmetic.square(new int[] {2,3,4}, 3, result);
+        assertArrayEquals(new int[] {4,12,25,24,16,0}, result);
+    }
+
+    @Test
+    public void divideByDigit() {
+        int[] quotient = new int[2];
+        assertEquals(1, DigitArithmetic.divideByDigit(new int[] {0,1}, 2, 3, quotient));
+        assertArrayEquals(new int[] {1431655765,0}, quotient);
+    }
+
+    @Test
+    public void divide() {
+        int[] quotient = new int[2];
+        int[] remainder = new int[3];
+        DigitArithmetic.divide(new int[] {0,0,Constants.BIT_MASKS[31],Integer.MAX_VALUE}, 4, new int[] {1,0,Constants.BIT_MASKS[31]}, 3, quotient, remainder);
+        assertArrayEquals("Quotient digit estimate that needs adding back", new int[] {(int)4294967294L,0}, quotient);
+        assertArrayEquals("Quotient digit estimate that needs adding back", new int[] {2,(int)4294967295L,Integer.MAX_VALUE}, remainder);
+
+        quotient = new int[1];
+        remainder = new int[3];
+        DigitArithmetic.divide(new int[] {3,0,Constants.BIT_MASKS[31]}, 3, new int[] {1,0,Constants.BIT_MASKS[29]}, 3, quotient, remainder);
+        assertArrayEquals("Divisor that needs normalising", new int[] {3}, quotient);
+        assertArrayEquals("Divisor that needs normalising", new int[] {0,0,Constants.BIT_MASKS[29]}, remainder);
+    }
+}
@@ -0,0 +1,45 @@
+package uk.co.cpascoe.rsa.maths;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LongDigitArithmeticTests {
+    @Test
+    public void packAndUnpack() {
+        long[] packed = LongDigitArithmetic.pack(new int[] {1,(int)4294967295L,3}, 3);
+        assertArrayEquals(new long[] {-4294967295L,3}, packed);
+
+        int[] unpacked = new int[3];
+        LongDigitArithmetic.unpack(packed, unpacked, 3);
+        assertArrayEquals(new int[] {1,(int)4294967295L,3}, unpacked);
+    }
+
+    @Test
+    public void unsignedMultiplyHigh() {
+        assertEquals("(2^64 - 1)^2 = 2^128 - 2^65 + 1", -2L, LongDigitArithmetic.unsignedMultiplyHigh(-1L, -1L));
+        assertEquals(1L, LongDigitArithmetic.unsignedMultiplyHigh(Long.MIN_VALUE, 2L));
+        assertEquals(0L, LongDigitArithmetic.unsignedMultiplyHigh(12345L, 67890L));
+    }
+
+    @Test
+    public void multiply() {
+        long[] result = new long[4];
+        LongDigitArithmetic.multiply(new long[] {-1L,-1L}, 2, new long[] {-1L,-1L}, 2, result);
+        assertArrayEquals("(2^128 - 1)^2 should be correct", new long[] {1L,0L,-2L,-1L}, result);
+
+        result = new long[3];
+        LongDigitArithmetic.multiply(new long[] {2,3}, 2, new long[] {5}, 1, result);
+        assertArrayEquals("Operands can have different lengths", new long[] {10,15,0}, result);
+    }
+
+    @Test
+    public void square() {
+        long[] result = new long[4];
+        LongDigitArithmetic.square(new long[] {-1L,-1L}, 2, result);
+        assertArrayEquals("(2^128 - 1)^2 should be correct", new long[] {1L,0L,-2L,-1L}, result);
+
+        result = new long[6];
+        LongDigitArithmetic.square(new long[] {2,3,4}, 3, result);
+        assertArrayEquals(new long[] {4,12,25,24,16,0}, result);
+    }
+}
@@ -0,0 +1,55 @@
+package uk.co.cpascoe.rsa.maths;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class LucasTestTests {
+    private static boolean isStrongLucasProbablePrime(int n) {
+        BigInt x = new BigInt(n);
+        return LucasTest.isStrongLucasProbablePrime(x, new MontgomeryContext(x));
+    }
+
+    @Test
+    public void primes() {
+        for (int i = 2; i < Constants.SMALL_PRIMES.length; i++) {
+            assertTrue(Constants.SMALL_PRIMES[i] + " is prime", LucasTestTests.isStrongLucasProbablePrime(Constants.SMALL_PRIMES[i]));
+        }
+
+        BigInt p = new BigInt(2).pow(new BigInt(521)).subtract(new BigInt(1));
+        assertTrue(LucasTest.isStrongLucasProbablePrime(p, new MontgomeryContext(p)));
+    }
+
+    @Test
+    public void composites() {
+        // The strong Lucas pseudoprimes below 20000, which are the only odd composites in that range to pass
+        int[] pseudoprimes = new int[] {5459, 5777, 10877, 16109, 18971};
+        int found = 0;
+
+        for (int n = 9; n < 20000; n += 2) {
+            if (new BigInt(n).isProbablePrime(20)) continue;
+
+            boolean pseudoprime = found < pseudoprimes.length && pseudoprimes[found] == n;
+            assertEquals(n + " is composite", pseudoprime, LucasTestTests.isStrongLucasProbablePrime(n));
+
+            if (pseudoprime) found++;
+        }
+
+        assertEquals(pseudoprimes.length, found);
+    }
+
+    @Test
+    public void isPerfectSquare() {
+        assertTrue(LucasTest.isPerfectSquare(new BigInt(1)));
+        assertTrue(LucasTest.isPerfectSquare(new BigInt(9)));
+        assertFalse(LucasTest.isPerfectSquare(new BigInt(8)));
+        assertFalse(LucasTest.isPerfectSquare(new BigInt(10)));
+
+        BigInt x = new BigInt(new int[] {123,456,789});
+        assertTrue(LucasTest.isPerfectSquare(x.square()));
+        assertFalse(LucasTest.isPerfectSquare(x.square().add(1)));
+        assertFalse(LucasTest.isPerfectSquare(x.square().subtract(1)));
+
+        BigInt y = new BigInt(1621).multiply(new BigInt(1621));
+        assertFalse("Squares fail rather than searching for D forever", LucasTest.isStrongLucasProbablePrime(y, new MontgomeryContext(y)));
+    }
+}
@@ -61,6 +61,40 @@ public class MathUtilsTests {
         assertTrue(MathUtils.gcd(new BigInt(0), new BigInt(123)).equals(new BigInt(123)));
         assertTrue(MathUtils.gcd(new BigInt(12), new BigInt(5)).equals(new BigInt(1)));
         assertTrue(MathUtils.gcd(new BigInt(12), new BigInt(16)).equals(new BigInt(4)));
+
+        // (2^160 - 1) and (2^96 - 1) share the factor 2^32 - 1
+        BigInt a = new BigInt(2).pow(new BigInt(160)).subtract(1);
+        BigInt b = new BigInt(2).pow(new BigInt(96)).subtract(1);
+        assertArrayEquals("Multi-digit values", new int[] {(int)4294967295L}, MathUtils.gcd(a, b).exportToIntArray());
+    }
+
+    @Test
+    public void extendedGcd() {
+        MathUtils.ExtendedGcdResult result = MathUtils.extendedGcd(new BigInt(240), new BigInt(46));
+        assertArrayEquals(new int[] {2}, result.gcd().exportToIntArray());
+        assertArrayEquals(new int[] {14}, result.x().exportToIntArray());
+        assertArrayEquals(new int[] {73}, result.y().exportToIntArray());
+
+        BigInt a = new BigInt(new int[] {1,2,3,4,5,6,7,8});
+        BigInt b = new BigInt(new int[] {9,8,7,6,5,4,3,2,1});
+        result = MathUtils.extendedGcd(a, b);
+        assertTrue("a * x - b * y = gcd", a.multiply(result.x()).subtract(b.multiply(result.y())).equals(result.gcd()));
+        assertTrue("x should be at most b / gcd", result.x().lessThanOrEqual(b.quotient(result.gcd())));
+
+        result = MathUtils.extendedGcd(new BigInt(7), new BigInt(0));
+        assertArrayEquals(new int[] {7}, result.gcd().exportToIntArray());
+        assertArrayEquals(new int[] {1}, result.x().exportToIntArray());
+        assertArrayEquals(new int[] {0}, result.y().exportToIntArray());
+
+        boolean errorThrown = false;
+
+        try {
+            MathUtils.extendedGcd(new BigInt(0), new BigInt(7));
+        } catch (Error ex) {
+            errorThrown = true;
+        }
+
+        assertTrue("A zero a should throw an Error", errorThrown);
     }
 
     @Test
@@ -93,4 +127,25 @@ public class MathUtilsTests {
             assertTrue(x.isProbablePrime());
         }
     }
+
+    @Test
+    public void generateSmallProbablePrime() {
+        for (int bits = 2; bits <= 40; bits++) {
+            BigInt x = MathUtils.generateProbablePrime(bits);
+            assertEquals(bits, x.bitCount());
+            assertTrue(x.isProbablePrime());
+        }
+    }
+
+    @Test
+    public void millerRabinRounds() {
+        assertEquals(4, MathUtils.millerRabinRounds(2048));
+        assertEquals(4, MathUtils.millerRabinRounds(1536));
+        assertEquals(5, MathUtils.millerRabinRounds(1024));
+        assertEquals(5, MathUtils.millerRabinRounds(512));
+        assertEquals(64, MathUtils.millerRabinRounds(511));
+        assertEquals(56, MathUtils.millerRabinRounds(224));
+        assertEquals(40, MathUtils.millerRabinRounds(160));
+        assertEquals(40, MathUtils.millerRabinRounds(2));
+    }
 }
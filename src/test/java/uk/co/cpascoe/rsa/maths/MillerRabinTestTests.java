@@ -0,0 +1,48 @@
+package uk.co.cpascoe.rsa.maths;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MillerRabinTestTests {
+    private static MillerRabinTest test(BigInt n) {
+        return new MillerRabinTest(n, new MontgomeryContext(n));
+    }
+
+    @Test
+    public void primes() {
+        BigInt p = new BigInt(2).pow(new BigInt(127)).subtract(new BigInt(1));
+        MillerRabinTest test = MillerRabinTestTests.test(p);
+
+        for (int base = 2; base < 50; base++) {
+            assertTrue(test.isStrongProbablePrime(new BigInt(base)));
+        }
+
+        // p - 1 = 2^12 * 3, so the rounds go through many squarings
+        assertTrue(MillerRabinTestTests.test(new BigInt(12289)).isStrongProbablePrime(new BigInt(11)));
+    }
+
+    @Test
+    public void composites() {
+        MillerRabinTest test = MillerRabinTestTests.test(new BigInt(2).pow(new BigInt(127)).add(new BigInt(1)));
+        assertFalse(test.isStrongProbablePrime(new BigInt(2)));
+
+        assertFalse("Carmichael number", MillerRabinTestTests.test(new BigInt(561)).isStrongProbablePrime(new BigInt(2)));
+        assertFalse(MillerRabinTestTests.test(new BigInt(15)).isStrongProbablePrime(new BigInt(2)));
+    }
+
+    @Test
+    public void strongPseudoprimes() {
+        // 2047 = 23 * 89 and 3277 = 29 * 113 are strong pseudoprimes to base 2, but not to base 3
+        for (int n : new int[] {2047, 3277}) {
+            MillerRabinTest test = MillerRabinTestTests.test(new BigInt(n));
+            assertTrue(test.isStrongProbablePrime(new BigInt(2)));
+            assertFalse(test.isStrongProbablePrime(new BigInt(3)));
+        }
+
+        // 1373653 = 829 * 1657 is a strong pseudoprime to bases 2 and 3
+        MillerRabinTest test = MillerRabinTestTests.test(new BigInt(1373653));
+        assertTrue(test.isStrongProbablePrime(new BigInt(2)));
+        assertTrue(test.isStrongProbablePrime(new BigInt(3)));
+        assertFalse(test.isStrongProbablePrime(new BigInt(5)));
+    }
+}
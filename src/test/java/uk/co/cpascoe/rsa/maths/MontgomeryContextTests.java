@@ -0,0 +1,77 @@
+package uk.co.cpascoe.rsa.maths;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MontgomeryContextTests {
+    @Test
+    public void constructorShouldRejectEvenModulus() {
+        boolean errorThrown = false;
+
+        try {
+            new MontgomeryContext(new BigInt(10));
+        } catch (Error ex) {
+            errorThrown = true;
+        }
+
+        assertTrue("An even modulus should throw an Error", errorThrown);
+    }
+
+    @Test
+    public void toAndFromMontgomery() {
+        MontgomeryContext ctx = new MontgomeryContext(new BigInt(13));
+
+        // R = 2^32, and 2^32 mod 13 = 9
+        assertArrayEquals(new int[] {9}, ctx.toMontgomery(new BigInt(1)).exportToIntArray());
+        assertArrayEquals(new int[] {5}, ctx.fromMontgomery(ctx.toMontgomery(new BigInt(5))).exportToIntArray());
+        assertArrayEquals("Values larger than the modulus should be reduced", new int[] {2}, ctx.fromMontgomery(ctx.toMontgomery(new BigInt(28))).exportToIntArray());
+    }
+
+    @Test
+    public void multiply() {
+        BigInt m = new BigInt(new int[] {(int)4294967295L,(int)4294967295L,(int)4294967295L});
+        MontgomeryContext ctx = new MontgomeryContext(m);
+
+        BigInt a = new BigInt(new int[] {123,456,789});
+        BigInt b = new BigInt(new int[] {(int)4294967290L,5,(int)4294967000L});
+
+        BigInt product = ctx.fromMontgomery(ctx.multiply(ctx.toMontgomery(a), ctx.toMontgomery(b)));
+
+        assertTrue(product.equals(a.multiply(b).mod(m)));
+    }
+
+    @Test
+    public void mulMod() {
+        BigInt m = new BigInt(2).pow(new BigInt(127)).subtract(new BigInt(1));
+        MontgomeryContext ctx = new MontgomeryContext(m);
+
+        BigInt a = new BigInt(new int[] {1,2,3,4,5,6});
+        BigInt b = new BigInt(new int[] {7,8,9});
+
+        assertTrue(ctx.mulMod(a, b).equals(a.multiply(b).mod(m)));
+    }
+
+    @Test
+    public void powMod() {
+        assertArrayEquals(new int[] {1}, new MontgomeryContext(new BigInt(7)).powMod(new BigInt(3), new BigInt(6)).exportToIntArray());
+        assertArrayEquals(new int[] {123}, new MontgomeryContext(new BigInt(65537)).powMod(new BigInt(123), new BigInt(new int[] {1,2,3})).exportToIntArray());
+        assertArrayEquals("Anything to the power of 0 is 1", new int[] {1}, new MontgomeryContext(new BigInt(7)).powMod(new BigInt(3), new BigInt(0)).exportToIntArray());
+        assertArrayEquals("Everything is 0 modulo 1", new int[] {0}, new MontgomeryContext(new BigInt(1)).powMod(new BigInt(3), new BigInt(5)).exportToIntArray());
+
+        MontgomeryContext ctx = new MontgomeryContext(new BigInt(new int[] {1,2,3}));
+        assertArrayEquals("The same context can be reused", new int[] {1313419847, -576389566, 2}, ctx.powMod(new BigInt(new int[] {2,5}), new BigInt(new int[] {1,2,3,4,5,6,7,8,9,10})).exportToIntArray());
+        assertArrayEquals("The same context can be reused", new int[] {1313419847, -576389566, 2}, ctx.powMod(new BigInt(new int[] {2,5}), new BigInt(new int[] {1,2,3,4,5,6,7,8,9,10})).exportToIntArray());
+    }
+
+    @Test
+    public void powModMontgomery() {
+        MontgomeryContext ctx = new MontgomeryContext(new BigInt(new int[] {1,2,3}));
+        BigInt base = new BigInt(new int[] {2,5});
+        BigInt exponent = new BigInt(new int[] {1,2,3,4,5,6,7,8,9,10});
+
+        int[] result = ctx.powModMontgomery(base, exponent, ctx.createWorkspace());
+        assertEquals(3, result.length);
+        assertArrayEquals("The result is left in Montgomery form", ctx.toMontgomery(ctx.powMod(base, exponent)).exportToIntArray(), BigInt.wrap(result).exportToIntArray());
+        assertArrayEquals(ctx.toMontgomery(new BigInt(1)).exportToIntArray(), BigInt.wrap(ctx.powModMontgomery(base, new BigInt(0), ctx.createWorkspace())).exportToIntArray());
+    }
+}
@@ -0,0 +1,102 @@
+package uk.co.cpascoe.rsa.maths;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Random;
+
+public class MultiplicationTests {
+    private static int[] randomDigits(int length, Random r) {
+        int[] digits = new int[length];
+
+        for (int i = 0; i < length; i++) {
+            digits[i] = r.nextInt();
+        }
+
+        return digits;
+    }
+
+    private static int[] allOnes(int length) {
+        int[] digits = new int[length];
+
+        for (int i = 0; i < length; i++) {
+            digits[i] = (int)4294967295L;
+        }
+
+        return digits;
+    }
+
+    private static void assertMatchesSchoolbook(int[] a, int[] b) {
+        int[] expected = new int[a.length + b.length];
+        DigitArithmetic.multiply(a, a.length, b, b.length, expected);
+
+        assertArrayEquals(expected, Multiplication.multiply(a, a.length, b, b.length));
+    }
+
+    private static void assertMatchesSchoolbook(int[] a) {
+        int[] expected = new int[2 * a.length];
+        DigitArithmetic.square(a, a.length, expected);
+
+        assertArrayEquals(expected, Multiplication.square(a, a.length));
+    }
+
+    @Test
+    public void multiplyKaratsuba() {
+        Random r = new Random(1);
+        int length = Constants.KARATSUBA_THRESHOLD + 7;
+
+        assertMatchesSchoolbook(randomDigits(length, r), randomDigits(length, r));
+        assertMatchesSchoolbook(randomDigits(length + 5, r), randomDigits(length, r));
+        assertMatchesSchoolbook(allOnes(length), allOnes(length));
+    }
+
+    @Test
+    public void multiplyToomCook3() {
+        Random r = new Random(2);
+        int length = Constants.TOOM_COOK_THRESHOLD + 11;
+
+        assertMatchesSchoolbook(randomDigits(length, r), randomDigits(length, r));
+        assertMatchesSchoolbook(randomDigits(length + 100, r), randomDigits(length, r));
+        assertMatchesSchoolbook(allOnes(length), allOnes(length));
+    }
+
+    @Test
+    public void multiplyNumberTheoreticTransform() {
+        Random r = new Random(6);
+        int length = Constants.NTT_THRESHOLD + 13;
+
+        assertMatchesSchoolbook(randomDigits(length, r), randomDigits(length, r));
+        assertMatchesSchoolbook(randomDigits(3 * length, r), randomDigits(length, r));
+        assertMatchesSchoolbook(allOnes(length), allOnes(length));
+    }
+
+    @Test
+    public void multiplyUnbalanced() {
+        Random r = new Random(3);
+
+        assertMatchesSchoolbook(randomDigits(5 * Constants.KARATSUBA_THRESHOLD + 3, r), randomDigits(Constants.KARATSUBA_THRESHOLD + 1, r));
+        assertMatchesSchoolbook(randomDigits(Constants.KARATSUBA_THRESHOLD + 1, r), randomDigits(5 * Constants.KARATSUBA_THRESHOLD + 3, r));
+    }
+
+    @Test
+    public void multiplyWithLeadingZeros() {
+        Random r = new Random(4);
+        int[] a = randomDigits(Constants.TOOM_COOK_THRESHOLD + 20, r);
+        int[] b = randomDigits(Constants.TOOM_COOK_THRESHOLD + 20, r);
+
+        for (int i = Constants.TOOM_COOK_THRESHOLD; i < a.length; i++) {
+            a[i] = 0;
+        }
+
+        assertMatchesSchoolbook(a, b);
+    }
+
+    @Test
+    public void square() {
+        Random r = new Random(5);
+
+        assertMatchesSchoolbook(randomDigits(Constants.KARATSUBA_SQUARE_THRESHOLD + 3, r));
+        assertMatchesSchoolbook(randomDigits(Constants.TOOM_COOK_SQUARE_THRESHOLD + 5, r));
+        assertMatchesSchoolbook(allOnes(Constants.TOOM_COOK_SQUARE_THRESHOLD + 1));
+        assertMatchesSchoolbook(randomDigits(Constants.NTT_SQUARE_THRESHOLD + 9, r));
+    }
+}
@@ -0,0 +1,209 @@
+package uk.co.cpascoe.rsa.maths;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MutableBigIntTests {
+    @Test
+    public void digitCount() {
+        MutableBigInt x = new MutableBigInt(1);
+        x.setDigit(2, 1000);
+        assertEquals(1001, x.digitCount());
+        x.setDigit(0, 1000);
+        assertEquals(1, x.digitCount());
+    }
+
+    @Test
+    public void toBigInt() {
+        MutableBigInt x = new MutableBigInt(new BigInt(new int[] {1,1}));
+        x.setDigit(0, 1);
+        assertTrue("Clearing the highest digit should shorten the value", x.toBigInt().compareTo(new BigInt(1)) == 0);
+
+        BigInt y = x.toBigInt();
+        x.setDigit(5, 0);
+        assertArrayEquals("Later changes should not affect the BigInt", new int[] {1}, y.exportToIntArray());
+    }
+
+    @Test
+    public void setBitAt() {
+        MutableBigInt x = new MutableBigInt(2);
+        x.setBitAt(1, 0);
+        assertArrayEquals(new int[] {3}, x.toBigInt().exportToIntArray());
+
+        x.setBitAt(0, 1);
+        assertArrayEquals(new int[] {1}, x.toBigInt().exportToIntArray());
+
+        x.setBitAt(1, 16);
+        assertArrayEquals(new int[] {65537}, x.toBigInt().exportToIntArray());
+        x.setBitAt(1, 16);
+        assertArrayEquals("Setting a set bit should not change the value", new int[] {65537}, x.toBigInt().exportToIntArray());
+    }
+
+    @Test
+    public void shiftBitsUp() {
+        MutableBigInt x = new MutableBigInt(1);
+        x.shiftBitsUp();
+        assertArrayEquals(new int[] {2}, x.toBigInt().exportToIntArray());
+        x = new MutableBigInt(3);
+        x.shiftBitsUp();
+        assertArrayEquals(new int[] {6}, x.toBigInt().exportToIntArray());
+        x = new MutableBigInt(new BigInt(new int[] {1,2,3,4}));
+        x.shiftBitsUp();
+        assertArrayEquals(new int[] {2,4,6,8}, x.toBigInt().exportToIntArray());
+        x = new MutableBigInt(new BigInt(new int[] {(int)4294967295L}));
+        x.shiftBitsUp();
+        assertArrayEquals(new int[] {(int)4294967294L,1}, x.toBigInt().exportToIntArray());
+    }
+
+    @Test
+    public void shiftBitsDown() {
+        MutableBigInt x = new MutableBigInt(1);
+        x.shiftBitsDown();
+        assertArrayEquals(new int[] {0}, x.toBigInt().exportToIntArray());
+        x = new MutableBigInt(2);
+        x.shiftBitsDown();
+        assertArrayEquals(new int[] {1}, x.toBigInt().exportToIntArray());
+        x = new MutableBigInt(new BigInt(new int[] {3,7}));
+        x.shiftBitsDown();
+        assertArrayEquals(new int[] {Constants.BIT_MASKS[31] + 1, 3}, x.toBigInt().exportToIntArray());
+        x = new MutableBigInt(new BigInt(new int[] {(int)4294967295L}));
+        x.shiftBitsDown();
+        assertArrayEquals(new int[] {Constants.BIT_MASKS[31] - 1}, x.toBigInt().exportToIntArray());
+    }
+
+    @Test
+    public void setDigit() {
+        MutableBigInt x = new MutableBigInt(0);
+        x.setDigit(123, 0);
+        assertEquals(123, x.getDigit(0));
+
+        x.setDigit(456, 1);
+        assertEquals(456, x.getDigit(1));
+
+        x.setDigit(7, 1000);
+        assertEquals(7, x.getDigit(1000));
+    }
+
+    @Test
+    public void set() {
+        MutableBigInt x = new MutableBigInt(new BigInt(new int[] {1,2,3}));
+        x.set(new BigInt(5));
+        assertArrayEquals("Setting a shorter value should clear the old high digits", new int[] {5}, x.toBigInt().exportToIntArray());
+
+        x.set(new MutableBigInt(new BigInt(new int[] {4,5,6,7})));
+        assertArrayEquals(new int[] {4,5,6,7}, x.toBigInt().exportToIntArray());
+    }
+
+    @Test
+    public void addInPlace() {
+        MutableBigInt x = new MutableBigInt(new BigInt(new int[] {(int)4294967295L,(int)4294967295L}));
+        x.addInPlace(new BigInt(1));
+        assertArrayEquals("Carries into a new digit", new int[] {0,0,1}, x.toBigInt().exportToIntArray());
+
+        x.addInPlace(x);
+        assertArrayEquals("A value can be added to itself", new int[] {0,0,2}, x.toBigInt().exportToIntArray());
+    }
+
+    @Test
+    public void subtractInPlace() {
+        MutableBigInt x = new MutableBigInt(new BigInt(new int[] {0,0,1}));
+        x.subtractInPlace(new BigInt(1));
+        assertArrayEquals("Borrows from higher digits", new int[] {(int)4294967295L,(int)4294967295L}, x.toBigInt().exportToIntArray());
+
+        x.subtractInPlace(new MutableBigInt(new BigInt(new int[] {(int)4294967295L,(int)4294967295L})));
+        assertTrue(x.equals(0));
+
+        boolean errorThrown = false;
+
+        try {
+            x.subtractInPlace(new BigInt(1));
+        } catch (Error ex) {
+            errorThrown = true;
+        }
+
+        assertTrue("Subtracting a larger number should throw an Error", errorThrown);
+    }
+
+    @Test
+    public void multiplyInto() {
+        MutableBigInt x = new MutableBigInt();
+        x.multiplyInto(new BigInt(new int[] {1,2}), new BigInt(new int[] {3,4}));
+        assertArrayEquals(new int[] {3,10,8}, x.toBigInt().exportToIntArray());
+
+        x.multiplyInto(x, new MutableBigInt(2));
+        assertArrayEquals("The result can be one of the operands", new int[] {6,20,16}, x.toBigInt().exportToIntArray());
+
+        x.multiplyInPlace(new BigInt(0));
+        assertTrue(x.equals(0));
+
+        x.set(new BigInt(3));
+        x.multiplyInPlace(new BigInt(5));
+        assertArrayEquals("The old digits should not leak into a shorter product", new int[] {15}, x.toBigInt().exportToIntArray());
+    }
+
+    @Test
+    public void squareInPlace() {
+        MutableBigInt x = new MutableBigInt(new BigInt(new int[] {1,2}));
+        x.squareInPlace();
+        assertArrayEquals(new int[] {1,4,4}, x.toBigInt().exportToIntArray());
+        x.squareInPlace();
+        assertArrayEquals(new int[] {1,8,24,32,16}, x.toBigInt().exportToIntArray());
+    }
+
+    @Test
+    public void shiftInPlace() {
+        MutableBigInt x = new MutableBigInt(3);
+        x.shiftInPlace(33);
+        assertArrayEquals(new int[] {0,6}, x.toBigInt().exportToIntArray());
+        x.shiftInPlace(-34);
+        assertArrayEquals(new int[] {1}, x.toBigInt().exportToIntArray());
+        x.shiftInPlace(-1);
+        assertTrue(x.equals(0));
+
+        x.set(new BigInt(new int[] {1,2,3}));
+        x.shiftInPlace(-100);
+        assertTrue("Shifting out every digit leaves 0", x.equals(0));
+    }
+
+    @Test
+    public void reduceInPlace() {
+        MutableBigInt x = new MutableBigInt(new BigInt(new int[] {1,2,3,4,5,6,7,8,9,10}));
+        BigInt modulus = new BigInt(new int[] {123,456,789});
+
+        x.reduceInPlace(modulus);
+        assertArrayEquals(new BigInt(new int[] {1,2,3,4,5,6,7,8,9,10}).mod(modulus).exportToIntArray(), x.toBigInt().exportToIntArray());
+
+        x.set(new BigInt(100));
+        x.reduceInPlace(new BigInt(7));
+        assertArrayEquals("Single digit modulus", new int[] {2}, x.toBigInt().exportToIntArray());
+
+        x.reduceInPlace(new BigInt(7));
+        assertArrayEquals("Values below the modulus are unchanged", new int[] {2}, x.toBigInt().exportToIntArray());
+
+        x.set(new BigInt(new int[] {5,5,5}));
+        x.squareInPlace();
+        assertArrayEquals("The quotient should not leak into later products", new int[] {25,50,75,50,25}, x.toBigInt().exportToIntArray());
+    }
+
+    @Test
+    public void equalsInt() {
+        MutableBigInt x = new MutableBigInt(5);
+        assertTrue(x.equals(5));
+        assertFalse(x.equals(6));
+
+        x.setDigit(1, 1);
+        assertFalse(x.equals(5));
+
+        x.set(new BigInt(new int[] {(int)4294967295L}));
+        assertFalse("2^32 - 1 should not equal -1", x.equals(-1));
+    }
+
+    @Test
+    public void compareTo() {
+        MutableBigInt x = new MutableBigInt(new BigInt(new int[] {1,2}));
+        assertTrue(x.compareTo(new BigInt(new int[] {1,2})) == 0);
+        assertTrue(x.compareTo(new BigInt(new int[] {2,2})) < 0);
+        assertTrue(x.compareTo(new BigInt(new int[] {5})) > 0);
+        assertTrue(x.compareTo(new BigInt(new int[] {1,2,0})) == 0);
+    }
+}
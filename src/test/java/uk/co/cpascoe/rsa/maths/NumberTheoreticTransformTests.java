@@ -0,0 +1,70 @@
+package uk.co.cpascoe.rsa.maths;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Random;
+
+public class NumberTheoreticTransformTests {
+    private static int[] randomDigits(int length, Random r) {
+        int[] digits = new int[length];
+
+        for (int i = 0; i < length; i++) {
+            digits[i] = r.nextInt();
+        }
+
+        return digits;
+    }
+
+    private static void assertMatchesMultiplication(int[] a, int[] b) {
+        int[] expected = Multiplication.multiply(a, a.length, b, b.length);
+        int[] result = new int[a.length + b.length];
+        NumberTheoreticTransform.multiply(a, a.length, b, b.length, result);
+
+        assertArrayEquals(expected, result);
+    }
+
+    @Test
+    public void multiply() {
+        Random r = new Random(1);
+
+        assertMatchesMultiplication(new int[] {3}, new int[] {5});
+        assertMatchesMultiplication(new int[] {-1}, new int[] {-1});
+
+        for (int length = 1; length < 70; length += 7) {
+            assertMatchesMultiplication(randomDigits(length, r), randomDigits(length, r));
+        }
+    }
+
+    @Test
+    public void multiplyUnbalanced() {
+        Random r = new Random(2);
+
+        assertMatchesMultiplication(randomDigits(1, r), randomDigits(24, r));
+        assertMatchesMultiplication(randomDigits(57, r), randomDigits(198, r));
+        assertMatchesMultiplication(randomDigits(300, r), randomDigits(5, r));
+    }
+
+    @Test
+    public void multiplyLargestCoefficients() {
+        int[] a = new int[1000];
+
+        for (int i = 0; i < a.length; i++) {
+            a[i] = (int)4294967295L;
+        }
+
+        assertMatchesMultiplication(a, a);
+    }
+
+    @Test
+    public void square() {
+        Random r = new Random(3);
+
+        for (int length : new int[] {1, 2, 31, 64, 255}) {
+            int[] a = randomDigits(length, r);
+            int[] result = new int[2 * length];
+            NumberTheoreticTransform.square(a, length, result);
+
+            assertArrayEquals(Multiplication.square(a, length), result);
+        }
+    }
+}
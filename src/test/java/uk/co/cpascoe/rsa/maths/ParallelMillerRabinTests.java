@@ -0,0 +1,55 @@
+package uk.co.cpascoe.rsa.maths;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelMillerRabinTests {
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @Test
+    public void primes() {
+        ParallelMillerRabin test = new ParallelMillerRabin(POOL, 4);
+
+        assertTrue(test.isProbablePrime(new BigInt(2), 10));
+        assertTrue(test.isProbablePrime(new BigInt(1619), 10));
+        assertTrue(test.isProbablePrime(new BigInt(1621), 10));
+        assertTrue(test.isProbablePrime(new BigInt(2).pow(new BigInt(521)).subtract(new BigInt(1)), 10));
+        assertTrue("Fewer rounds than tasks", test.isProbablePrime(new BigInt(2).pow(new BigInt(127)).subtract(new BigInt(1)), 3));
+    }
+
+    @Test
+    public void composites() {
+        ParallelMillerRabin test = new ParallelMillerRabin(POOL, 4);
+
+        assertFalse(test.isProbablePrime(new BigInt(1), 10));
+        assertFalse(test.isProbablePrime(new BigInt(100), 10));
+        assertFalse(test.isProbablePrime(new BigInt(2).pow(new BigInt(127)).add(new BigInt(1)), 10));
+        assertFalse("A Carmichael number with large factors", test.isProbablePrime(new BigInt(1621).multiply(new BigInt(3241)).multiply(new BigInt(4861)), 40));
+
+        BigInt p = new BigInt(2).pow(new BigInt(127)).subtract(new BigInt(1));
+        BigInt q = new BigInt(2).pow(new BigInt(89)).subtract(new BigInt(1));
+        assertFalse(test.isProbablePrime(p.multiply(q), 1000));
+    }
+
+    @Test
+    public void singleTask() {
+        ParallelMillerRabin test = new ParallelMillerRabin(POOL, 1);
+        assertEquals(1, test.getParallelism());
+        assertTrue(test.isProbablePrime(new BigInt(2).pow(new BigInt(127)).subtract(new BigInt(1)), 10));
+        assertFalse(test.isProbablePrime(new BigInt(2).pow(new BigInt(127)).add(new BigInt(1)), 10));
+    }
+
+    @Test
+    public void invalidArguments() {
+        boolean errorThrown = false;
+
+        try {
+            new ParallelMillerRabin(POOL, 0);
+        } catch (Error ex) {
+            errorThrown = true;
+        }
+
+        assertTrue("A parallelism of 0 should throw an Error", errorThrown);
+    }
+}
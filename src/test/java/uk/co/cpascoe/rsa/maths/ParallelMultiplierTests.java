@@ -0,0 +1,71 @@
+package uk.co.cpascoe.rsa.maths;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelMultiplierTests {
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @Test
+    public void multiply() {
+        Random r = new Random(1);
+
+        for (int parallelism : new int[] {1, 2, 3, 5, 7, 32}) {
+            // A low cutoff makes the product split several times
+            ParallelMultiplier multiplier = new ParallelMultiplier(POOL, parallelism, 32 * 16);
+
+            BigInt a = MathUtils.randomBigInt(32 * 500, r);
+            BigInt b = MathUtils.randomBigInt(32 * 400, r);
+
+            assertArrayEquals("Parallelism of " + parallelism, a.multiply(b).exportToIntArray(), multiplier.multiply(a, b).exportToIntArray());
+        }
+    }
+
+    @Test
+    public void multiplyUnbalanced() {
+        Random r = new Random(2);
+        ParallelMultiplier multiplier = new ParallelMultiplier(POOL, 6, 32 * 16);
+
+        BigInt a = MathUtils.randomBigInt(32 * 2000, r);
+        BigInt b = MathUtils.randomBigInt(32 * 90, r);
+
+        assertArrayEquals(a.multiply(b).exportToIntArray(), multiplier.multiply(a, b).exportToIntArray());
+        assertArrayEquals(a.multiply(b).exportToIntArray(), multiplier.multiply(b, a).exportToIntArray());
+    }
+
+    @Test
+    public void multiplySmall() {
+        ParallelMultiplier multiplier = new ParallelMultiplier(POOL, 4);
+
+        assertArrayEquals(new int[] {12}, multiplier.multiply(new BigInt(3), new BigInt(4)).exportToIntArray());
+        assertTrue(multiplier.multiply(new BigInt(3), new BigInt(0)).equals(0));
+    }
+
+    @Test
+    public void square() {
+        Random r = new Random(3);
+
+        for (int parallelism : new int[] {2, 5, 32}) {
+            ParallelMultiplier multiplier = new ParallelMultiplier(POOL, parallelism, 32 * 16);
+            BigInt a = MathUtils.randomBigInt(32 * 700, r);
+
+            assertArrayEquals("Parallelism of " + parallelism, a.square().exportToIntArray(), multiplier.square(a).exportToIntArray());
+            assertArrayEquals("Multiplying a number by itself", a.square().exportToIntArray(), multiplier.multiply(a, a).exportToIntArray());
+        }
+    }
+
+    @Test
+    public void invalidArguments() {
+        boolean errorThrown = false;
+
+        try {
+            new ParallelMultiplier(POOL, 0);
+        } catch (Error ex) {
+            errorThrown = true;
+        }
+
+        assertTrue("A parallelism of 0 should throw an Error", errorThrown);
+    }
+}
@@ -0,0 +1,57 @@
+package uk.co.cpascoe.rsa.maths;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Arrays;
+import java.util.Random;
+
+public class PrimeSieveTests {
+    private static boolean hasSmallFactor(BigInt x, int primeCount) {
+        for (int i = 0; i < primeCount; i++) {
+            if (x.mod(new BigInt(PrimeSieve.PRIMES[i])).equals(0)) return true;
+        }
+
+        return false;
+    }
+
+    @Test
+    public void primes() {
+        assertArrayEquals(new int[] {3,5,7,11,13,17,19,23}, Arrays.copyOf(PrimeSieve.PRIMES, 8));
+        assertEquals("There are 3512 primes below 2^15, including 2", 3511, PrimeSieve.PRIMES.length);
+        assertEquals(32749, PrimeSieve.PRIMES[PrimeSieve.PRIMES.length - 1]);
+    }
+
+    @Test
+    public void crossesOffMultiples() {
+        Random r = new Random(1);
+        BigInt start = MathUtils.randomBigInt(200, r).or(new BigInt(1));
+        PrimeSieve sieve = new PrimeSieve(start, 300, start);
+
+        for (int window = 0; window < 2; window++) {
+            for (int i = 0; i < sieve.size(); i++) {
+                BigInt candidate = sieve.candidate(i);
+                assertTrue(candidate.equals(start.add(new BigInt(2 * (window * 300 + i)))));
+                assertEquals("Candidate " + i + " of window " + window, !sieve.survives(i), hasSmallFactor(candidate, PrimeSieve.PRIMES.length));
+            }
+
+            sieve.next();
+        }
+    }
+
+    @Test
+    public void doesNotCrossOffSmallPrimes() {
+        PrimeSieve sieve = new PrimeSieve(new BigInt(3), 4, new BigInt(3));
+
+        for (int i = 0; i < sieve.size(); i++) {
+            assertTrue("No primes are used below the minimum, so 3, 5, 7 and 9 all survive", sieve.survives(i));
+        }
+
+        // Only 3, 5 and 7 are below the minimum, so the candidates 9, 11, 13, 15, 17 and 19 are only sieved by them
+        sieve = new PrimeSieve(new BigInt(9), 6, new BigInt(8));
+        boolean[] expected = new boolean[] {false, true, true, false, true, true};
+
+        for (int i = 0; i < sieve.size(); i++) {
+            assertEquals(sieve.candidate(i).exportToIntArray()[0] + "", expected[i], sieve.survives(i));
+        }
+    }
+}
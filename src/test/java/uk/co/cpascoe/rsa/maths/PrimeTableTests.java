@@ -0,0 +1,50 @@
+package uk.co.cpascoe.rsa.maths;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Random;
+
+public class PrimeTableTests {
+    @Test
+    public void smallPrimes() {
+        assertEquals(256, Constants.SMALL_PRIMES.length);
+        assertEquals(2, Constants.SMALL_PRIMES[0]);
+        assertEquals(1619, Constants.SMALL_PRIMES[255]);
+
+        for (int i = 0; i < 255; i++) {
+            int p = Constants.SMALL_PRIMES[i];
+            assertTrue(p < Constants.SMALL_PRIMES[i + 1]);
+
+            for (int n = p + 1; n < Constants.SMALL_PRIMES[i + 1]; n++) {
+                assertFalse("Every prime up to 1619 should be in the table", new BigInt(n).isProbablePrime(15));
+            }
+        }
+    }
+
+    @Test
+    public void residues() {
+        Random r = new Random(1);
+        PrimeTable table = new PrimeTable(PrimeSieve.PRIMES);
+        assertEquals(PrimeSieve.PRIMES.length, table.size());
+
+        for (int bits : new int[] {1, 31, 32, 100, 1024}) {
+            BigInt x = MathUtils.randomBigInt(bits, r);
+            int[] residues = table.residues(x);
+
+            for (int i = 0; i < PrimeSieve.PRIMES.length; i++) {
+                assertEquals(x.mod(new BigInt(PrimeSieve.PRIMES[i])).getDigit(0), residues[i]);
+            }
+        }
+    }
+
+    @Test
+    public void hasFactor() {
+        BigInt large = new BigInt(2).pow(new BigInt(127)).subtract(new BigInt(1));
+
+        assertFalse("A prime larger than the table has no factor in it", PrimeTable.SMALL_PRIMES.hasFactor(large));
+        assertTrue(PrimeTable.SMALL_PRIMES.hasFactor(large.multiply(new BigInt(2))));
+        assertTrue("The last prime is in the last group", PrimeTable.SMALL_PRIMES.hasFactor(large.multiply(new BigInt(1619))));
+        assertTrue(PrimeTable.SMALL_PRIMES.hasFactor(new BigInt(1613 * 1619)));
+        assertFalse(PrimeTable.SMALL_PRIMES.hasFactor(new BigInt(1621 * 1627)));
+    }
+}
@@ -0,0 +1,115 @@
+package uk.co.cpascoe.rsa.maths;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import java.util.Random;
+
+public class RadixConversionTests {
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder();
+
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+
+        return builder.toString();
+    }
+
+    @Test
+    public void powersOfTen() {
+        // Large enough to divide and conquer, with every split leaving a remainder of zero (or all nines) that must be padded
+        BigInt power = new BigInt(10).pow(new BigInt(3000));
+
+        assertEquals("1" + repeat('0', 3000), RadixConversion.toString(power, 10));
+        assertEquals(repeat('9', 3000), RadixConversion.toString(power.subtract(1), 10));
+
+        assertTrue(RadixConversion.parse("1" + repeat('0', 3000), 10).equals(power));
+        assertTrue(RadixConversion.parse(repeat('9', 3000), 10).equals(power.subtract(1)));
+    }
+
+    @Test
+    public void hex() {
+        Random r = new Random(1);
+        BigInt x = MathUtils.randomBigInt(32 * 1500, r).setBit(32 * 1500 - 1);
+
+        StringBuilder expected = new StringBuilder();
+
+        for (int i = x.digitCount() - 1; i >= 0; i--) {
+            expected.append(String.format("%08x", x.getDigit(i)));
+        }
+
+        assertEquals(expected.toString(), RadixConversion.toString(x, 16));
+        assertTrue(RadixConversion.parse(expected.toString().toUpperCase(), 16).equals(x));
+    }
+
+    @Test
+    public void roundTrip() {
+        Random r = new Random(2);
+
+        for (int radix : new int[] {2, 3, 7, 10, 16, 36}) {
+            BigInt x = MathUtils.randomBigInt(20000, r);
+            assertTrue("Radix " + radix, RadixConversion.parse(RadixConversion.toString(x, radix), radix).equals(x));
+        }
+    }
+
+    /**
+     * Converts a value to and from a radix, recording whether the round trip gave the same value
+     */
+    private static class Converter extends Thread {
+        private final BigInt x;
+        private final int radix;
+        private boolean matches;
+
+        private Converter(BigInt x, int radix) {
+            this.x = x;
+            this.radix = radix;
+        }
+
+        @Override
+        public void run() {
+            this.matches = RadixConversion.parse(RadixConversion.toString(this.x, this.radix), this.radix).equals(this.x);
+        }
+    }
+
+    @Test
+    public void concurrentConversions() throws InterruptedException {
+        // Threads that grow the cache of powers for the same radix at once should all see complete powers
+        Random r = new Random(3);
+        Converter[] converters = new Converter[8];
+
+        for (int i = 0; i < converters.length; i++) {
+            converters[i] = new Converter(MathUtils.randomBigInt(1000 * (i + 1), r), i % 2 == 0 ? 23 : 29);
+            converters[i].start();
+        }
+
+        for (int i = 0; i < converters.length; i++) {
+            converters[i].join();
+            assertTrue(converters[i].matches);
+        }
+    }
+
+    @Test
+    public void rejectsNonAsciiDigits() {
+        for (String invalid : new String[] {"\u0661", "12\u0663", "\uFF11\uFF12", "\u0966"}) {
+            boolean errorThrown = false;
+
+            try {
+                RadixConversion.parse(invalid, 10);
+            } catch (Error ex) {
+                errorThrown = true;
+            }
+
+            assertTrue("Parsing '" + invalid + "' should throw an Error", errorThrown);
+        }
+
+        boolean errorThrown = false;
+
+        try {
+            RadixConversion.parse("\uFF41", 16);
+        } catch (Error ex) {
+            errorThrown = true;
+        }
+
+        assertTrue("A fullwidth letter is not a hex digit", errorThrown);
+    }
+}
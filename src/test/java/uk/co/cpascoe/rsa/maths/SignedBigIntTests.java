@@ -0,0 +1,79 @@
+package uk.co.cpascoe.rsa.maths;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SignedBigIntTests {
+    @Test
+    public void create() {
+        assertTrue(new SignedBigInt(-5).isNegative());
+        assertArrayEquals(new int[] {5}, new SignedBigInt(-5).magnitude().exportToIntArray());
+        assertFalse("Zero is never negative", new SignedBigInt(new BigInt(0), true).isNegative());
+        assertEquals(0, new SignedBigInt(new BigInt(0), true).signum());
+        assertEquals(1, new SignedBigInt(7).signum());
+        assertEquals(-1, new SignedBigInt(-7).signum());
+    }
+
+    @Test
+    public void negate() {
+        assertTrue(new SignedBigInt(5).negate().equals(-5));
+        assertTrue(new SignedBigInt(-5).negate().equals(5));
+        assertTrue(new SignedBigInt(0).negate().equals(0));
+    }
+
+    @Test
+    public void add() {
+        assertTrue(new SignedBigInt(3).add(new SignedBigInt(4)).equals(7));
+        assertTrue(new SignedBigInt(-3).add(new SignedBigInt(-4)).equals(-7));
+        assertTrue(new SignedBigInt(3).add(new SignedBigInt(-4)).equals(-1));
+        assertTrue(new SignedBigInt(-3).add(new SignedBigInt(4)).equals(1));
+        assertTrue(new SignedBigInt(-3).add(new SignedBigInt(3)).equals(0));
+        assertTrue(new SignedBigInt(-3).add(new BigInt(10)).equals(7));
+    }
+
+    @Test
+    public void subtract() {
+        assertTrue("Subtracting a larger number", new SignedBigInt(3).subtract(new BigInt(10)).equals(-7));
+        assertTrue(new SignedBigInt(3).subtract(new SignedBigInt(-10)).equals(13));
+        assertTrue(new SignedBigInt(-3).subtract(new SignedBigInt(-10)).equals(7));
+
+        SignedBigInt result = new SignedBigInt(new BigInt(new int[] {5})).subtract(new BigInt(new int[] {0,0,1}));
+        assertTrue(result.isNegative());
+        assertArrayEquals("Subtracting a larger number with several digits", new int[] {-5,-1}, result.magnitude().exportToIntArray());
+    }
+
+    @Test
+    public void multiply() {
+        assertTrue(new SignedBigInt(-3).multiply(new SignedBigInt(4)).equals(-12));
+        assertTrue(new SignedBigInt(-3).multiply(new SignedBigInt(-4)).equals(12));
+        assertTrue(new SignedBigInt(-3).multiply(new BigInt(4)).equals(-12));
+        assertFalse("Zero is never negative", new SignedBigInt(-3).multiply(new BigInt(0)).isNegative());
+    }
+
+    @Test
+    public void mod() {
+        assertArrayEquals(new int[] {3}, new SignedBigInt(13).mod(new BigInt(5)).exportToIntArray());
+        assertArrayEquals(new int[] {2}, new SignedBigInt(-13).mod(new BigInt(5)).exportToIntArray());
+        assertArrayEquals(new int[] {0}, new SignedBigInt(-15).mod(new BigInt(5)).exportToIntArray());
+        assertArrayEquals(new int[] {-1,-1}, new SignedBigInt(-1).mod(new BigInt(new int[] {0,0,1})).exportToIntArray());
+    }
+
+    @Test
+    public void compareTo() {
+        assertTrue(new SignedBigInt(-5).lessThan(new SignedBigInt(3)));
+        assertTrue(new SignedBigInt(-5).lessThan(new SignedBigInt(-3)));
+        assertTrue(new SignedBigInt(5).greaterThan(new SignedBigInt(3)));
+        assertTrue(new SignedBigInt(0).greaterThan(new SignedBigInt(-3)));
+        assertTrue(new SignedBigInt(new BigInt(0), true).equals(new SignedBigInt(0)));
+    }
+
+    @Test
+    public void equalsInt() {
+        assertTrue(new SignedBigInt(-5).equals(-5));
+        assertFalse(new SignedBigInt(5).equals(-5));
+        assertTrue(new SignedBigInt(Integer.MIN_VALUE).equals(Integer.MIN_VALUE));
+        assertTrue(new SignedBigInt(Integer.MAX_VALUE).equals(Integer.MAX_VALUE));
+        assertFalse("2^31 is not Integer.MIN_VALUE", new SignedBigInt(new BigInt(Integer.MIN_VALUE)).equals(Integer.MIN_VALUE));
+        assertFalse(new SignedBigInt(new BigInt(new int[] {5, 1}), true).equals(-5));
+    }
+}
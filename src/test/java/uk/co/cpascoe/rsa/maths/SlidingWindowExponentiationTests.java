@@ -0,0 +1,51 @@
+package uk.co.cpascoe.rsa.maths;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SlidingWindowExponentiationTests {
+    /**
+     * Multiplies single digits modulo a prime, counting the multiplications
+     */
+    private static class SmallModulus extends SlidingWindowExponentiation {
+        private static final long P = 1000003;
+
+        private int multiplications = 0;
+
+        @Override
+        protected void multiply(int[] a, int[] b, int[] result) {
+            result[0] = (int)((long)a[0] * b[0] % SmallModulus.P);
+            this.multiplications++;
+        }
+    }
+
+    @Test
+    public void pow() {
+        for (int exponent : new int[] {0, 1, 2, 3, 17, 255, 256, 123456789}) {
+            long expected = 1;
+
+            for (int i = 0; i < exponent % (SmallModulus.P - 1); i++) {
+                expected = expected * 7 % SmallModulus.P;
+            }
+
+            int[] result = new SmallModulus().pow(new int[] {7}, new BigInt(exponent), new int[] {1});
+            assertEquals("7^" + exponent, expected, result[0]);
+        }
+    }
+
+    @Test
+    public void baseIsNotModified() {
+        int[] base = new int[] {7};
+        new SmallModulus().pow(base, new BigInt(new int[] {1,2,3}), new int[] {1});
+        assertArrayEquals(new int[] {7}, base);
+    }
+
+    @Test
+    public void usesWindows() {
+        SmallModulus exponentiation = new SmallModulus();
+        BigInt exponent = new BigInt(new int[] {-1,-1,-1,-1,-1,-1,-1,-1});
+        exponentiation.pow(new int[] {7}, exponent, new int[] {1});
+
+        assertTrue("Windows need far fewer multiplications than one per set bit", exponentiation.multiplications < 256 + 256 / 2);
+    }
+}